@@ -0,0 +1,191 @@
+package org.project;
+
+import org.project.enums.OrderPriority;
+import org.project.enums.OrderStatus;
+import org.project.enums.OrderType;
+import org.project.enums.SelfTradePrevention;
+import org.project.enums.TimeInForce;
+import org.project.exceptions.OrderException;
+import org.project.impl.InMemoryOrderManager;
+import org.project.impl.MockMarketDataProvider;
+import org.project.impl.OrderStatusPublisher;
+import org.project.utils.CompositeInstrument;
+import org.project.utils.ExecutionReport;
+import org.project.utils.FixedPoint;
+import org.project.utils.HierarchicalTimingWheel;
+import org.project.utils.Instrument;
+import org.project.utils.InstrumentComponent;
+import org.project.utils.IntIdRegistry;
+import org.project.utils.Order;
+import org.project.utils.SubOrder;
+import org.project.utils.WarmupReport;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Engine Warmup (replays a synthetic workload on scratch books so the order path is compiled before live flow)
+public class EngineWarmup {
+    private static final Logger LOGGER = Logger.getLogger(EngineWarmup.class.getName());
+
+    // Classes on the order path, loaded and initialised up front instead of on the first live order
+    private static final Class<?>[] PRELOADED_CLASSES = {
+            SimpleTradingEngine.class, InMemoryOrderManager.class, OrderStatusPublisher.class,
+            Order.class, SubOrder.class, Instrument.class, CompositeInstrument.class, InstrumentComponent.class,
+            ExecutionReport.class, FixedPoint.class, IntIdRegistry.class, HierarchicalTimingWheel.class,
+            HierarchicalTimingWheel.Timeout.class, OrderType.class, OrderStatus.class, TimeInForce.class,
+            SelfTradePrevention.class, OrderPriority.class, OrderException.class
+    };
+
+    // Engine loggers are raised to WARNING during the replay, every synthetic fill would be logged otherwise
+    private static final Logger[] QUIETED_LOGGERS = {
+            Logger.getLogger(SimpleTradingEngine.class.getName()),
+            Logger.getLogger(InMemoryOrderManager.class.getName())
+    };
+
+    private static final String BUYER = "warmup-buyer";
+    private static final String SELLER = "warmup-seller";
+    private static final double PRICE = 100.0;
+
+    private final int cyclesPerBatch;
+    private final int maxBatches;
+    private final int stableBatches;
+    private final double tolerance;
+
+    public EngineWarmup() {
+        this(2_000, 500, 5, 0.10);
+    }
+
+    // Steady state is reached once the last stableBatches batch latencies are within tolerance of the fastest of them
+    public EngineWarmup(int cyclesPerBatch, int maxBatches, int stableBatches, double tolerance) {
+        if (cyclesPerBatch <= 0 || maxBatches <= 0 || stableBatches <= 0 || tolerance < 0) {
+            throw new IllegalArgumentException("Warm-up needs positive batch sizes and counts and a non-negative tolerance");
+        }
+        this.cyclesPerBatch = cyclesPerBatch;
+        this.maxBatches = maxBatches;
+        this.stableBatches = stableBatches;
+        this.tolerance = tolerance;
+    }
+
+    public static void main(String[] args) throws OrderException {
+        EngineWarmup warmup;
+        if (args.length == 0) {
+            warmup = new EngineWarmup();
+        } else {
+            int cyclesPerBatch = args.length == 2 ? parsePositive(args[0]) : -1;
+            int maxBatches = args.length == 2 ? parsePositive(args[1]) : -1;
+            if (cyclesPerBatch <= 0 || maxBatches <= 0) {
+                System.err.println("Usage: EngineWarmup [<cycles per batch> <max batches>], both positive integers");
+                System.exit(1);
+                return;
+            }
+            warmup = new EngineWarmup(cyclesPerBatch, maxBatches, 5, 0.10);
+        }
+        LOGGER.log(Level.INFO, warmup.run().toString());
+    }
+
+    private static int parsePositive(String argument) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public WarmupReport run() throws OrderException {
+        long start = System.nanoTime();
+        int preloadedClasses = preloadClasses();
+
+        Level[] previousLevels = new Level[QUIETED_LOGGERS.length];
+        for (int i = 0; i < QUIETED_LOGGERS.length; i++) {
+            previousLevels[i] = QUIETED_LOGGERS[i].getLevel();
+            QUIETED_LOGGERS[i].setLevel(Level.WARNING);
+        }
+        try {
+            return replay(start, preloadedClasses);
+        } finally {
+            for (int i = 0; i < QUIETED_LOGGERS.length; i++) {
+                QUIETED_LOGGERS[i].setLevel(previousLevels[i]);
+            }
+        }
+    }
+
+    private WarmupReport replay(long start, int preloadedClasses) throws OrderException {
+        // Scratch instances only, compiled code is shared with the live engine but its books are not
+        Instrument stock1 = new Instrument("warmup-1", "WARM1");
+        Instrument stock2 = new Instrument("warmup-2", "WARM2");
+        CompositeInstrument basket = new CompositeInstrument("warmup-3", "WARMB", List.of(
+                new InstrumentComponent(stock1, 0.5),
+                new InstrumentComponent(stock2, 0.5)
+        ));
+        Instrument[] outrights = {stock1, stock2};
+        List<String> instrumentIds = List.of(stock1.getId(), stock2.getId(), basket.getId());
+        InMemoryOrderManager orderManager = new InMemoryOrderManager();
+        SimpleTradingEngine engine = new SimpleTradingEngine(orderManager,
+                new MockMarketDataProvider(Map.of(stock1.getId(), PRICE, stock2.getId(), PRICE)));
+
+        long[] batchNanos = new long[maxBatches];
+        long cycle = 0;
+        int batches = 0;
+        boolean steady = false;
+        while (batches < maxBatches && !steady) {
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < cyclesPerBatch; i++, cycle++) {
+                replayCycle(orderManager, engine, cycle, cycle % 8 == 7 ? basket : outrights[(int) (cycle & 1)], instrumentIds);
+            }
+            batchNanos[batches++] = (System.nanoTime() - batchStart) / cyclesPerBatch;
+            steady = isSteady(batchNanos, batches);
+        }
+
+        long timeToSteadyStateMillis = (System.nanoTime() - start) / 1_000_000;
+        return new WarmupReport(preloadedClasses, batches, cyclesPerBatch, steady, timeToSteadyStateMillis,
+                batchNanos[0], batchNanos[batches - 1]);
+    }
+
+    private static void replayCycle(InMemoryOrderManager orderManager, SimpleTradingEngine engine, long cycle,
+                                    Instrument instrument, List<String> instrumentIds) throws OrderException {
+        // Outright limit orders, composite market orders, day orders for the expiry wheel and a periodic matchAll
+        Double price = instrument instanceof CompositeInstrument ? null : PRICE;
+        Order buyOrder = new Order("warmup-buy-" + cycle, BUYER, OrderType.BUY, instrument, 10.0, price);
+        Order sellOrder = new Order("warmup-sell-" + cycle, SELLER, OrderType.SELL, instrument, 10.0, price);
+        if ((cycle & 1) == 0) {
+            buyOrder.setTimeInForce(TimeInForce.DAY);
+        }
+        orderManager.addOrder(buyOrder);
+        orderManager.addOrder(sellOrder);
+        if (cycle % 16 == 15) {
+            engine.matchAll(instrumentIds);
+        } else {
+            engine.matchOrders(instrument.getId());
+        }
+
+        // Filled orders stay in the book until cancelled, keep the scratch books at a constant size
+        orderManager.cancelOrder(buyOrder.getId());
+        orderManager.cancelOrder(sellOrder.getId());
+    }
+
+    private boolean isSteady(long[] batchNanos, int batches) {
+        if (batches < stableBatches) {
+            return false;
+        }
+        long fastest = Long.MAX_VALUE;
+        long slowest = 0;
+        for (int i = batches - stableBatches; i < batches; i++) {
+            fastest = Math.min(fastest, batchNanos[i]);
+            slowest = Math.max(slowest, batchNanos[i]);
+        }
+        return slowest - fastest <= fastest * tolerance;
+    }
+
+    private static int preloadClasses() {
+        for (Class<?> preloadedClass : PRELOADED_CLASSES) {
+            try {
+                Class.forName(preloadedClass.getName(), true, preloadedClass.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                LOGGER.log(Level.WARNING, "Failed to preload class: " + preloadedClass.getName(), e);
+            }
+        }
+        return PRELOADED_CLASSES.length;
+    }
+}
@@ -2,42 +2,129 @@ package org.project;
 
 import org.project.enums.OrderStatus;
 import org.project.enums.OrderType;
+import org.project.enums.SelfTradePrevention;
+import org.project.exceptions.OrderException;
+import org.project.impl.ImpliedPriceEngine;
+import org.project.impl.OrderQueryService;
+import org.project.impl.OrderStatusPublisher;
 import org.project.interfaces.MarketDataProvider;
+import org.project.interfaces.MatchingPassListener;
 import org.project.interfaces.OrderManager;
+import org.project.interfaces.TradeListener;
 import org.project.interfaces.TradingEngine;
 import org.project.utils.CompositeInstrument;
+import org.project.utils.FixedPoint;
 import org.project.utils.Instrument;
 import org.project.utils.InstrumentComponent;
 import org.project.utils.Order;
+import org.project.utils.SubOrder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class SimpleTradingEngine implements TradingEngine {
 
     private static final Logger LOGGER = Logger.getLogger(SimpleTradingEngine.class.getName());
+    private static final ThreadLocal<LegExecutionContext> LEG_CONTEXTS = ThreadLocal.withInitial(LegExecutionContext::new);
 
     private final OrderManager orderManager;
     private final MarketDataProvider marketDataProvider;
+    private final ForkJoinPool matchingPool;
+    private final OrderStatusPublisher statusPublisher;
+    private volatile TradeListener[] tradeListeners = new TradeListener[0];
+    private volatile MatchingPassListener[] matchingPassListeners = new MatchingPassListener[0];
+    private volatile OrderQueryService queryService;
+    private volatile ImpliedPriceEngine impliedPriceEngine;
+    private volatile SelfTradePrevention selfTradePrevention = SelfTradePrevention.CANCEL_NEWEST;
+    // Orders cancelled by self-trade prevention leave the book after the pass, never from a matching worker
+    private final Queue<Order> selfTradeCancellations = new ConcurrentLinkedQueue<>();
+    // Books traded by implied matches beyond the ones being matched, they get new views after the pass too
+    private final Queue<String> impliedTradedBooks = new ConcurrentLinkedQueue<>();
 
     public SimpleTradingEngine(OrderManager orderManager, MarketDataProvider marketDataProvider) {
+        this(orderManager, marketDataProvider, ForkJoinPool.commonPool());
+    }
+
+    public SimpleTradingEngine(OrderManager orderManager, MarketDataProvider marketDataProvider, ForkJoinPool matchingPool) {
+        this(orderManager, marketDataProvider, matchingPool, new OrderStatusPublisher());
+    }
+
+    public SimpleTradingEngine(OrderManager orderManager, MarketDataProvider marketDataProvider, ForkJoinPool matchingPool, OrderStatusPublisher statusPublisher) {
         this.orderManager = orderManager;
         this.marketDataProvider = marketDataProvider;
+        this.matchingPool = matchingPool;
+        this.statusPublisher = statusPublisher;
+    }
+
+    public OrderStatusPublisher getStatusPublisher() {
+        return statusPublisher;
+    }
+
+    public synchronized void addTradeListener(TradeListener listener) {
+        // Copy on write, the matching path only reads the array
+        TradeListener[] listeners = Arrays.copyOf(tradeListeners, tradeListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        tradeListeners = listeners;
+    }
+
+    public synchronized void addMatchingPassListener(MatchingPassListener listener) {
+        MatchingPassListener[] listeners = Arrays.copyOf(matchingPassListeners, matchingPassListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        matchingPassListeners = listeners;
+    }
+
+    public void setQueryService(OrderQueryService queryService) {
+        this.queryService = queryService;
+    }
+
+    public void setImpliedPriceEngine(ImpliedPriceEngine impliedPriceEngine) {
+        this.impliedPriceEngine = impliedPriceEngine;
+    }
+
+    public SelfTradePrevention getSelfTradePrevention() {
+        return selfTradePrevention;
+    }
+
+    public void setSelfTradePrevention(SelfTradePrevention selfTradePrevention) {
+        this.selfTradePrevention = selfTradePrevention;
     }
 
     @Override
     public void matchOrders(String instrumentId) {
+        // Orders past their deadline leave the book before they can trade
+        orderManager.expireOrders();
+        matchBook(instrumentId);
+        matchImplied(instrumentId);
+        removeSelfTradeCancellations();
+        Collection<String> matchedIds = withImpliedTradedBooks(List.of(instrumentId));
+        publishViews(matchedIds);
+        notifyMatchingPassCompleted(matchedIds);
+    }
+
+    private void matchBook(String instrumentId) {
         List<Order> buyOrders = orderManager.getOrders(instrumentId, OrderType.BUY);
         List<Order> sellOrders = orderManager.getOrders(instrumentId, OrderType.SELL);
 
         for (Order buyOrder : buyOrders) {
             for (Order sellOrder : sellOrders) {
                 if (canExecuteTrade(buyOrder, sellOrder)) {
+                    // Same trader on both sides, compared on the interned trader IDs
+                    if (buyOrder.getTraderKey() == sellOrder.getTraderKey() && selfTradePrevention != SelfTradePrevention.NONE) {
+                        preventSelfTrade(buyOrder, sellOrder);
                     // Handle composite orders
-                    if (buyOrder.isCompositeOrder() || sellOrder.isCompositeOrder()) {
+                    } else if (buyOrder.isCompositeOrder() || sellOrder.isCompositeOrder()) {
                         handleCompositeOrderTrade(buyOrder, sellOrder);
                     } else {
                         executeTrade(buyOrder, sellOrder);
@@ -47,15 +134,222 @@ public class SimpleTradingEngine implements TradingEngine {
         }
     }
 
-    private void handleCompositeOrderTrade(Order buyOrder, Order sellOrder) {
+    @Override
+    public void matchAll(Collection<String> instrumentIds) {
+        // Books linked by composite orders must be matched on the same thread, independent groups run in parallel.
+        // The order book is only read here, so orders must not be added or cancelled while the pass is running.
+        // Expiry therefore runs first, on the calling thread.
+        orderManager.expireOrders();
+        List<List<String>> groups = partitionIndependentBooks(instrumentIds);
+        if (groups.size() <= 1) {
+            groups.forEach(this::matchGroup);
+        } else {
+            matchingPool.invoke(new MatchGroupsTask(groups, 0, groups.size()));
+        }
+        removeSelfTradeCancellations();
+        Collection<String> matchedIds = withImpliedTradedBooks(instrumentIds);
+        publishViews(matchedIds);
+        notifyMatchingPassCompleted(matchedIds);
+    }
+
+    private void notifyMatchingPassCompleted(Collection<String> instrumentIds) {
+        for (MatchingPassListener listener : matchingPassListeners) {
+            listener.onMatchingPassCompleted(instrumentIds);
+        }
+    }
+
+    private Collection<String> withImpliedTradedBooks(Collection<String> instrumentIds) {
+        if (impliedTradedBooks.isEmpty()) {
+            return instrumentIds;
+        }
+        Collection<String> matchedIds = new LinkedHashSet<>(instrumentIds);
+        String instrumentId;
+        while ((instrumentId = impliedTradedBooks.poll()) != null) {
+            matchedIds.add(instrumentId);
+        }
+        return matchedIds;
+    }
+
+    private void publishViews(Collection<String> instrumentIds) {
+        // Readers get a new book view once per pass, from the thread that ran it
+        OrderQueryService service = queryService;
+        if (service != null) {
+            service.publish(instrumentIds);
+        }
+    }
+
+    private void matchGroup(List<String> instrumentIds) {
+        for (String instrumentId : instrumentIds) {
+            matchBook(instrumentId);
+            matchImplied(instrumentId);
+        }
+    }
+
+    private void matchImplied(String instrumentId) {
+        // Only baskets whose top of book or legs moved in this book are searched for implied crosses
+        ImpliedPriceEngine engine = impliedPriceEngine;
+        if (engine == null) {
+            return;
+        }
+        for (CompositeInstrument basket : engine.refresh(instrumentId)) {
+            ImpliedPriceEngine.Match match;
+            while ((match = engine.findMatch(basket, selfTradePrevention)) != null) {
+                executeImpliedMatch(match);
+            }
+        }
+    }
+
+    private void executeImpliedMatch(ImpliedPriceEngine.Match match) {
+        // Every leg of the basket order trades against the best outright order of that leg
+        Order basketOrder = match.getBasketOrder();
+        boolean basketBuys = basketOrder.getType() == OrderType.BUY;
+        List<InstrumentComponent> components = ((CompositeInstrument) basketOrder.getInstrument()).getComponents();
+        LegExecutionContext context = LEG_CONTEXTS.get();
+        SubOrder[] legs = basketBuys ? context.buySubOrders : context.sellSubOrders;
+
+        impliedTradedBooks.add(basketOrder.getInstrument().getId());
+        for (int i = 0; i < match.getLegCount(); i++) {
+            Order counterparty = match.getCounterparty(i);
+            OrderStatus previousStatus = counterparty.getStatus();
+            impliedTradedBooks.add(counterparty.getInstrument().getId());
+            legs[i].reset(basketOrder, components.get(i).getInstrument(), match.getLegQuantityUnits(i));
+            if (basketBuys ? fillOrders(legs[i], counterparty) : fillOrders(counterparty, legs[i])) {
+                statusPublisher.publish(counterparty, previousStatus);
+            }
+        }
+
+        OrderStatus previousStatus = basketOrder.getStatus();
+        basketOrder.setQuantityUnits(basketOrder.getQuantityUnits() - match.getBasketQuantityUnits());
+        basketOrder.setStatus(basketOrder.getQuantityUnits() == 0 ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED);
+        statusPublisher.publish(basketOrder, previousStatus);
+    }
+
+    private void preventSelfTrade(Order buyOrder, Order sellOrder) {
+        // Sequences come from the order book, on a tie the sell order counts as the newest
+        boolean buyIsNewest = buyOrder.getSequence() > sellOrder.getSequence();
+        Order newestOrder = buyIsNewest ? buyOrder : sellOrder;
+        Order oldestOrder = buyIsNewest ? sellOrder : buyOrder;
+
+        switch (selfTradePrevention) {
+            case CANCEL_NEWEST -> cancelSelfTrade(newestOrder);
+            case CANCEL_OLDEST -> cancelSelfTrade(oldestOrder);
+            case CANCEL_BOTH -> {
+                cancelSelfTrade(buyOrder);
+                cancelSelfTrade(sellOrder);
+            }
+            case DECREMENT -> decrementSelfTrade(buyOrder, sellOrder);
+            default -> {
+            }
+        }
+    }
+
+    private void decrementSelfTrade(Order buyOrder, Order sellOrder) {
+        // Both sides lose the overlapping quantity without a trade, an order left with nothing is cancelled
+        long overlapUnits = Math.min(buyOrder.getQuantityUnits(), sellOrder.getQuantityUnits());
+        for (Order order : new Order[]{buyOrder, sellOrder}) {
+            order.setQuantityUnits(order.getQuantityUnits() - overlapUnits);
+            if (order.getQuantityUnits() <= 0) {
+                cancelSelfTrade(order);
+            } else {
+                statusPublisher.publish(order, order.getStatus());
+            }
+        }
+    }
+
+    private void cancelSelfTrade(Order order) {
+        OrderStatus previousStatus = order.getStatus();
+        order.setStatus(OrderStatus.CANCELLED);
+        statusPublisher.publish(order, previousStatus);
+        selfTradeCancellations.add(order);
+        LOGGER.log(Level.INFO, "Order cancelled by self-trade prevention: " + order.getId());
+    }
+
+    private void removeSelfTradeCancellations() {
+        Order order;
+        while ((order = selfTradeCancellations.poll()) != null) {
+            try {
+                orderManager.cancelOrder(order.getId());
+            } catch (OrderException e) {
+                LOGGER.log(Level.WARNING, "Self-trade cancelled order already left the book: " + order.getId());
+            }
+        }
+    }
+
+    private List<List<String>> partitionIndependentBooks(Collection<String> instrumentIds) {
+        // One pass over the resting composite orders, the outright books are never scanned here
+        Map<String, String> parents = new HashMap<>();
+        for (Order order : orderManager.getCompositeOrders()) {
+            // A composite order touches its own book and every component book
+            CompositeInstrument compositeInstrument = (CompositeInstrument) order.getInstrument();
+            for (InstrumentComponent component : compositeInstrument.getComponents()) {
+                union(parents, compositeInstrument.getId(), component.getInstrument().getId());
+            }
+        }
+
+        // Keep the requested order within each group so matching stays deterministic
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String instrumentId : new LinkedHashSet<>(instrumentIds)) {
+            groups.computeIfAbsent(findRoot(parents, instrumentId), root -> new ArrayList<>()).add(instrumentId);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private String findRoot(Map<String, String> parents, String instrumentId) {
+        String node = instrumentId;
+        parents.putIfAbsent(node, node);
+        while (!node.equals(parents.get(node))) {
+            // Path halving keeps the trees flat across thousands of symbols
+            parents.put(node, parents.get(parents.get(node)));
+            node = parents.get(node);
+        }
+        return node;
+    }
+
+    private void union(Map<String, String> parents, String first, String second) {
+        String firstRoot = findRoot(parents, first);
+        String secondRoot = findRoot(parents, second);
+        if (!firstRoot.equals(secondRoot)) {
+            parents.put(secondRoot, firstRoot);
+        }
+    }
+
+    // Splits the independent groups in halves until each task owns a single group
+    private class MatchGroupsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<String>> groups;
+        private final int from;
+        private final int to;
+
+        MatchGroupsTask(List<List<String>> groups, int from, int to) {
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                matchGroup(groups.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MatchGroupsTask(groups, from, middle), new MatchGroupsTask(groups, middle, to));
+        }
+    }
+
+    void handleCompositeOrderTrade(Order buyOrder, Order sellOrder) {
+        if (!(buyOrder.getInstrument() instanceof CompositeInstrument buyInstrument) ||
+                !(sellOrder.getInstrument() instanceof CompositeInstrument sellInstrument)) {
+            return;
+        }
+
         // Extract underlying instruments from composite orders
-        List<Instrument> buyComponents = ((CompositeInstrument) buyOrder.getInstrument()).getComponents().stream().map(InstrumentComponent::getInstrument)
-                .collect(Collectors.toList());
-        List<Instrument> sellComponents = ((CompositeInstrument) sellOrder.getInstrument()).getComponents().stream().map(InstrumentComponent::getInstrument)
-                .toList();
+        List<InstrumentComponent> buyComponents = buyInstrument.getComponents();
+        List<InstrumentComponent> sellComponents = sellInstrument.getComponents();
 
         // Validate component count and instrument match
-        if (buyComponents.size() != sellComponents.size() || !buyComponents.stream().allMatch(component -> sellComponents.stream().anyMatch(c -> c.getId().equals(component.getId())))) {
+        if (buyComponents.size() != sellComponents.size() || !containsAllInstruments(sellComponents, buyComponents)) {
             return;
         }
 
@@ -64,59 +358,70 @@ public class SimpleTradingEngine implements TradingEngine {
 
     }
 
-    private void createExecuteSubOrders(Order parentOrder, List<Instrument> components, Order counterOrder) {
-        List<Order> sellSubOrders = new ArrayList<>();
-        List<Order> buySubOrders = new ArrayList<>();
-
+    private boolean containsAllInstruments(List<InstrumentComponent> components, List<InstrumentComponent> required) {
+        for (int i = 0; i < required.size(); i++) {
+            String instrumentId = required.get(i).getInstrument().getId();
+            boolean found = false;
+            for (int j = 0; j < components.size() && !found; j++) {
+                found = components.get(j).getInstrument().getId().equals(instrumentId);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        for (Instrument instrument : components) {
-            double parentQuantity = calculateSubOrderQuantity(parentOrder, instrument);
-            double counterQuantity = calculateSubOrderQuantity(counterOrder, instrument);
+    private void createExecuteSubOrders(Order parentOrder, List<InstrumentComponent> components, Order counterOrder) {
+        // Legs are reused between basket matches, so a steady stream of composite trades does not allocate
+        LegExecutionContext context = LEG_CONTEXTS.get();
+        SubOrder[] buySubOrders = context.buySubOrders;
+        SubOrder[] sellSubOrders = context.sellSubOrders;
+        int legCount = components.size();
 
-            // Create sub-orders for both parent and counter orders
-            Order parentSubOrder = createSubOrder(parentOrder, instrument, parentQuantity);
-            Order counterSubOrder = createSubOrder(counterOrder, instrument, counterQuantity);
+        for (int i = 0; i < legCount; i++) {
+            Instrument instrument = components.get(i).getInstrument();
+            long parentQuantity = calculateSubOrderQuantity(parentOrder, instrument);
+            long counterQuantity = calculateSubOrderQuantity(counterOrder, instrument);
 
-            // Execute the trades for both sub-orders
-            executeTrade(parentSubOrder, counterSubOrder);
+            // Prepare the sub-orders for both parent and counter orders
+            buySubOrders[i].reset(parentOrder, instrument, parentQuantity);
+            sellSubOrders[i].reset(counterOrder, instrument, counterQuantity);
 
-            // Add the sub-orders to the list of sub-orders
-            buySubOrders.add(parentSubOrder);
-            sellSubOrders.add(counterSubOrder);
+            // Execute the trades for both sub-orders, only the parent orders are reported to subscribers
+            fillOrders(buySubOrders[i], sellSubOrders[i]);
         }
 
         // Update the status of the parent order based on the status of sub-orders
-        updateParentOrderStatus(parentOrder, buySubOrders);
-        updateParentOrderStatus(counterOrder, sellSubOrders);
+        updateParentOrderStatus(parentOrder, buySubOrders, legCount);
+        updateParentOrderStatus(counterOrder, sellSubOrders, legCount);
     }
 
-    private double calculateSubOrderQuantity(Order order, Instrument instrument) {
-        double quantity = 0.0;
+    private long calculateSubOrderQuantity(Order order, Instrument instrument) {
+        long quantity = 0;
 
         if (order.getInstrument() instanceof CompositeInstrument compositeInstrument) {
 
             // Get the weight of the component instrument in the composite instrument
             double componentWeight = compositeInstrument.getComponentWeight(instrument.getId());
 
-            // Calculate the quantity based on the weight and the total quantity of the parent order
-            quantity = componentWeight * order.getQuantity();
+            // Calculate the quantity based on the weight and the total quantity of the parent order, in whole lots of the component
+            quantity = FixedPoint.roundDownToMultiple(FixedPoint.multiply(order.getQuantityUnits(), componentWeight), instrument.getLotUnits());
         }
 
         return quantity;
     }
 
+    private void updateParentOrderStatus(Order parentOrder, SubOrder[] subOrders, int legCount) {
+        OrderStatus previousStatus = parentOrder.getStatus();
 
-    private Order createSubOrder(Order order, Instrument instrument, double quantity) {
-        // Create a sub-order with appropriate properties
-        Order subOrder = new Order(order.getId() + "_" + instrument.getId(), order.getTraderId(), order.getType(), order.getInstrument(), quantity, order.getPrice());
-        subOrder.setInstrument(instrument);
-        return subOrder;
-    }
-
-    private void updateParentOrderStatus(Order parentOrder, List<Order> subOrders) {
         // Check if all sub-orders are filled, partially filled, or pending
-        boolean allFilled = subOrders.stream().allMatch(o -> o.getStatus() == OrderStatus.FILLED);
-        boolean allPartiallyFilled = subOrders.stream().anyMatch(o -> o.getStatus() == OrderStatus.PARTIALLY_FILLED);
+        boolean allFilled = true;
+        boolean allPartiallyFilled = false;
+        for (int i = 0; i < legCount; i++) {
+            allFilled &= subOrders[i].getStatus() == OrderStatus.FILLED;
+            allPartiallyFilled |= subOrders[i].getStatus() == OrderStatus.PARTIALLY_FILLED;
+        }
 
         // Update the status of the parent order
         if (allFilled) {
@@ -126,6 +431,22 @@ public class SimpleTradingEngine implements TradingEngine {
         } else {
             parentOrder.setStatus(OrderStatus.PENDING);
         }
+        statusPublisher.publish(parentOrder, previousStatus);
+    }
+
+    // Per-thread pool of sub-orders, sized for the largest basket a CompositeInstrument accepts
+    private static final class LegExecutionContext {
+        private static final int MAX_LEGS = 3;
+
+        private final SubOrder[] buySubOrders = new SubOrder[MAX_LEGS];
+        private final SubOrder[] sellSubOrders = new SubOrder[MAX_LEGS];
+
+        LegExecutionContext() {
+            for (int i = 0; i < MAX_LEGS; i++) {
+                buySubOrders[i] = new SubOrder();
+                sellSubOrders[i] = new SubOrder();
+            }
+        }
     }
 
     public boolean canExecuteTrade(Order buyOrder, Order sellOrder) {
@@ -137,53 +458,107 @@ public class SimpleTradingEngine implements TradingEngine {
         // Check if both orders are active (status is PENDING or PARTIALLY_FILLED) and have positive quantities
         if ((buyOrder.getStatus() != OrderStatus.PENDING && buyOrder.getStatus() != OrderStatus.PARTIALLY_FILLED) ||
                 (sellOrder.getStatus() != OrderStatus.PENDING && sellOrder.getStatus() != OrderStatus.PARTIALLY_FILLED) ||
-                buyOrder.getQuantity() <= 0 || sellOrder.getQuantity() <= 0) {
+                buyOrder.getQuantityUnits() <= 0 || sellOrder.getQuantityUnits() <= 0) {
             return false;
         }
 
         // Check if buy price is greater than or equal to sell price
-        double buyPrice = buyOrder.getPrice() != null ? buyOrder.getPrice() : marketDataProvider.getMarketPrice(buyOrder.getInstrument().getId());
-        double sellPrice = sellOrder.getPrice() != null ? sellOrder.getPrice() : marketDataProvider.getMarketPrice(sellOrder.getInstrument().getId());
-        return !(buyPrice < sellPrice);
+        return getLimitOrMarketPrice(buyOrder) >= getLimitOrMarketPrice(sellOrder);
+    }
+
+    private long getLimitOrMarketPrice(Order order) {
+        if (order.getPriceUnits() != FixedPoint.NONE) {
+            return order.getPriceUnits();
+        }
+        return FixedPoint.fromDouble(marketDataProvider.getMarketPrice(order.getInstrument().getId()));
     }
 
 
     @Override
     public void executeTrade(Order buyOrder, Order sellOrder) {
+        OrderStatus previousBuyStatus = buyOrder.getStatus();
+        OrderStatus previousSellStatus = sellOrder.getStatus();
+        if (fillOrders(buyOrder, sellOrder)) {
+            // Every fill produces an execution report for both sides
+            statusPublisher.publish(buyOrder, previousBuyStatus);
+            statusPublisher.publish(sellOrder, previousSellStatus);
+        }
+    }
+
+    private boolean fillOrders(Order buyOrder, Order sellOrder) {
         // Check if the orders are for the same instrument
         if (!buyOrder.getInstrument().getId().equals(sellOrder.getInstrument().getId())) {
-            return;
+            return false;
         }
 
         // Determine the trade quantity based on the minimum of the buy and sell order quantities
-        double tradeQuantity = Math.min(buyOrder.getQuantity(), sellOrder.getQuantity());
+        long tradeQuantity = Math.min(buyOrder.getQuantityUnits(), sellOrder.getQuantityUnits());
         // Update the status of buy and sell orders
         updateOrderStatus(buyOrder, sellOrder, tradeQuantity);
         // Adjust the order quantities
         adjustOrderQuantities(buyOrder, sellOrder, tradeQuantity);
-        LOGGER.log(Level.INFO, "Buy order status after matching: " + buyOrder.getStatus());
-        LOGGER.log(Level.INFO, "Sell order status after matching: " + sellOrder.getStatus());
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.log(Level.INFO, "Buy order status after matching: " + buyOrder.getStatus());
+            LOGGER.log(Level.INFO, "Sell order status after matching: " + sellOrder.getStatus());
+        }
+        notifyTrade(buyOrder, sellOrder, tradeQuantity);
+        return true;
+    }
 
+    private void notifyTrade(Order buyOrder, Order sellOrder, long tradeQuantity) {
+        TradeListener[] listeners = tradeListeners;
+        if (listeners.length == 0 || tradeQuantity <= 0) {
+            return;
+        }
+        long tradePriceUnits = resolveTradePriceUnits(buyOrder, sellOrder);
+        for (TradeListener listener : listeners) {
+            try {
+                listener.onTrade(buyOrder, sellOrder, tradeQuantity, tradePriceUnits);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Trade listener failed for instrument: " + buyOrder.getInstrument().getId(), e);
+            }
+        }
+    }
+
+    private long resolveTradePriceUnits(Order buyOrder, Order sellOrder) {
+        // Basket legs carry the basket price, against an outright order they trade at its limit, otherwise at the component's market price
+        if (buyOrder instanceof SubOrder || sellOrder instanceof SubOrder) {
+            Order outrightOrder = buyOrder instanceof SubOrder ? sellOrder : buyOrder;
+            if (!(outrightOrder instanceof SubOrder) && outrightOrder.getPriceUnits() != FixedPoint.NONE) {
+                return outrightOrder.getPriceUnits();
+            }
+            return FixedPoint.fromDouble(marketDataProvider.getMarketPrice(buyOrder.getInstrument().getId()));
+        }
+        if (sellOrder.getPriceUnits() != FixedPoint.NONE) {
+            return sellOrder.getPriceUnits();
+        }
+        if (buyOrder.getPriceUnits() != FixedPoint.NONE) {
+            return buyOrder.getPriceUnits();
+        }
+        return FixedPoint.fromDouble(marketDataProvider.getMarketPrice(buyOrder.getInstrument().getId()));
     }
 
-    private void updateOrderStatus(Order buyOrder, Order sellOrder, double tradeQuantity) {
-        if (tradeQuantity == buyOrder.getQuantity() && tradeQuantity == sellOrder.getQuantity()) {
+    private void updateOrderStatus(Order buyOrder, Order sellOrder, long tradeQuantity) {
+        // Exact unit comparisons, a fill can never leave a rounding remainder behind
+        long buyQuantity = buyOrder.getQuantityUnits();
+        long sellQuantity = sellOrder.getQuantityUnits();
+        if (tradeQuantity == buyQuantity && tradeQuantity == sellQuantity) {
             buyOrder.setStatus(OrderStatus.FILLED);
             sellOrder.setStatus(OrderStatus.FILLED);
-        } else if (tradeQuantity < buyOrder.getQuantity() && tradeQuantity == sellOrder.getQuantity()) {
+        } else if (tradeQuantity < buyQuantity && tradeQuantity == sellQuantity) {
             buyOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
             sellOrder.setStatus(OrderStatus.FILLED);
-        } else if (tradeQuantity == buyOrder.getQuantity() && tradeQuantity < sellOrder.getQuantity()) {
+        } else if (tradeQuantity == buyQuantity && tradeQuantity < sellQuantity) {
             buyOrder.setStatus(OrderStatus.FILLED);
             sellOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
-        } else if (tradeQuantity < buyOrder.getQuantity() && tradeQuantity < sellOrder.getQuantity()) {
+        } else if (tradeQuantity < buyQuantity && tradeQuantity < sellQuantity) {
             buyOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
             sellOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
         }
     }
 
-    private void adjustOrderQuantities(Order buyOrder, Order sellOrder, double tradeQuantity) {
-        buyOrder.setQuantity(buyOrder.getQuantity() - tradeQuantity);
-        sellOrder.setQuantity(sellOrder.getQuantity() - tradeQuantity);
+    private void adjustOrderQuantities(Order buyOrder, Order sellOrder, long tradeQuantity) {
+        buyOrder.setQuantityUnits(buyOrder.getQuantityUnits() - tradeQuantity);
+        sellOrder.setQuantityUnits(sellOrder.getQuantityUnits() - tradeQuantity);
     }
 }
@@ -0,0 +1,7 @@
+package org.project.enums;
+
+public enum OrderPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
@@ -3,5 +3,8 @@ package org.project.enums;
 public enum OrderStatus {
     PENDING,
     PARTIALLY_FILLED,
-    FILLED
+    FILLED,
+    EXPIRED,
+    CANCELLED,
+    REJECTED
 }
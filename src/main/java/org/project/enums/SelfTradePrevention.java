@@ -0,0 +1,9 @@
+package org.project.enums;
+
+public enum SelfTradePrevention {
+    NONE,
+    CANCEL_NEWEST,
+    CANCEL_OLDEST,
+    CANCEL_BOTH,
+    DECREMENT
+}
@@ -0,0 +1,7 @@
+package org.project.enums;
+
+public enum TimeInForce {
+    GOOD_TILL_CANCEL,
+    DAY,
+    GOOD_TILL_DATE
+}
@@ -0,0 +1,249 @@
+package org.project.impl;
+
+import org.project.enums.AdmissionDecision;
+import org.project.enums.OrderPriority;
+import org.project.enums.OrderStatus;
+import org.project.enums.OrderType;
+import org.project.exceptions.OrderException;
+import org.project.interfaces.MatchingPassListener;
+import org.project.interfaces.OrderBookListener;
+import org.project.interfaces.OrderManager;
+import org.project.interfaces.TimeSource;
+import org.project.utils.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Admission Controller (rate limits and sheds new orders in front of an OrderManager, cancels always pass)
+public class AdmissionController implements OrderManager, MatchingPassListener {
+    private static final Logger LOGGER = Logger.getLogger(AdmissionController.class.getName());
+
+    private final OrderManager delegate;
+    private final TimeSource timeSource;
+    private final double tokensPerMilli;
+    private final double burst;
+    private final int maxBacklog;
+    private final long maxMatchingLagMillis;
+    private final int maxDeferred;
+    private final OrderStatusPublisher statusPublisher;
+
+    // Indexed by the interned trader key, so a throttle check is an array load and some arithmetic
+    private double[] tokens = new double[64];
+    private long[] lastRefillTimes = new long[64];
+    private final Map<String, Order> deferredOrders = new LinkedHashMap<>();
+    // Unmatched admitted orders per instrument, in the order each book's backlog started, so the head is the oldest
+    private final Map<String, InstrumentBacklog> backlogs = new LinkedHashMap<>();
+    private int backlog;
+    private long admittedCount;
+    private long deferredCount;
+    private long rejectedCount;
+
+    public AdmissionController(OrderManager delegate, TimeSource timeSource, double ordersPerSecond, int burst,
+                               int maxBacklog, long maxMatchingLagMillis, int maxDeferred) {
+        this(delegate, timeSource, ordersPerSecond, burst, maxBacklog, maxMatchingLagMillis, maxDeferred, null);
+    }
+
+    // Pass the engine's publisher so subscribers learn when a deferred order is rejected on release
+    public AdmissionController(OrderManager delegate, TimeSource timeSource, double ordersPerSecond, int burst,
+                               int maxBacklog, long maxMatchingLagMillis, int maxDeferred, OrderStatusPublisher statusPublisher) {
+        this.delegate = delegate;
+        this.timeSource = timeSource;
+        this.tokensPerMilli = ordersPerSecond / 1000.0;
+        this.burst = burst;
+        this.maxBacklog = maxBacklog;
+        this.maxMatchingLagMillis = maxMatchingLagMillis;
+        this.maxDeferred = maxDeferred;
+        this.statusPublisher = statusPublisher;
+        Arrays.fill(lastRefillTimes, Long.MIN_VALUE);
+    }
+
+    @Override
+    public synchronized void addOrder(Order order) throws OrderException {
+        submit(order);
+    }
+
+    // Same as addOrder, but tells the caller whether the order reached the book or was deferred
+    public synchronized AdmissionDecision submit(Order order) throws OrderException {
+        // Invalid orders fail here, a deferred order must not be found invalid only once it is released
+        delegate.validateOrder(order);
+        long now = timeSource.currentTimeMillis();
+        AdmissionDecision decision = decide(order, now);
+        if (decision == AdmissionDecision.DEFER && deferredOrders.size() >= maxDeferred) {
+            decision = AdmissionDecision.REJECT;
+        }
+
+        switch (decision) {
+            case ADMIT -> admit(order, now);
+            case DEFER -> {
+                deferredOrders.put(order.getId(), order);
+                deferredCount++;
+            }
+            default -> {
+                rejectedCount++;
+                LOGGER.log(Level.WARNING, "Order rejected by admission control: " + order.getId());
+                throw new OrderException("Order rejected by admission control: " + order.getId());
+            }
+        }
+        return decision;
+    }
+
+    @Override
+    public void validateOrder(Order order) throws OrderException {
+        delegate.validateOrder(order);
+    }
+
+    @Override
+    public synchronized void cancelOrder(String orderId) throws OrderException {
+        // Cancels are never throttled, a deferred order is simply dropped
+        if (deferredOrders.remove(orderId) == null) {
+            delegate.cancelOrder(orderId);
+        }
+    }
+
+    @Override
+    public void addOrderBookListener(OrderBookListener listener) {
+        delegate.addOrderBookListener(listener);
+    }
+
+    @Override
+    public Collection<Order> getCompositeOrders() {
+        return delegate.getCompositeOrders();
+    }
+
+    @Override
+    public void expireOrders() {
+        delegate.expireOrders();
+    }
+
+    @Override
+    public List<Order> getOrders(String instrumentId) {
+        return delegate.getOrders(instrumentId);
+    }
+
+    @Override
+    public List<Order> getOrders(String instrumentId, OrderType orderType) {
+        return delegate.getOrders(instrumentId, orderType);
+    }
+
+    private AdmissionDecision decide(Order order, long now) {
+        // Per-trader token bucket, refilled lazily from the elapsed time
+        int traderKey = order.getTraderKey();
+        if (traderKey >= 0 && !takeToken(traderKey, now)) {
+            return AdmissionDecision.REJECT;
+        }
+
+        // Load level from the orders not yet matched and how long the oldest of them has waited
+        long lag = backlog > 0 ? now - backlogs.values().iterator().next().since : 0;
+        boolean severe = backlog >= 2 * maxBacklog || lag >= 2 * maxMatchingLagMillis;
+        boolean overloaded = severe || backlog >= maxBacklog || lag >= maxMatchingLagMillis;
+
+        OrderPriority priority = order.getPriority();
+        if (!overloaded || priority == OrderPriority.HIGH) {
+            return AdmissionDecision.ADMIT;
+        }
+        if (priority == OrderPriority.LOW) {
+            return severe ? AdmissionDecision.REJECT : AdmissionDecision.DEFER;
+        }
+        return severe ? AdmissionDecision.DEFER : AdmissionDecision.ADMIT;
+    }
+
+    // Called by the engine after each matching pass, only the books it matched have worked off their backlog
+    @Override
+    public synchronized void onMatchingPassCompleted(Collection<String> instrumentIds) {
+        for (String instrumentId : instrumentIds) {
+            InstrumentBacklog instrumentBacklog = backlogs.remove(instrumentId);
+            if (instrumentBacklog != null) {
+                backlog -= instrumentBacklog.count;
+            }
+        }
+        long now = timeSource.currentTimeMillis();
+        Iterator<Order> iterator = deferredOrders.values().iterator();
+        while (iterator.hasNext() && backlog < maxBacklog) {
+            Order order = iterator.next();
+            iterator.remove();
+            try {
+                admit(order, now);
+            } catch (OrderException e) {
+                // Still possible for a good-till-date deadline that passed while deferred, the client is told
+                rejectedCount++;
+                LOGGER.log(Level.WARNING, "Deferred order rejected: " + order.getId());
+                OrderStatus previousStatus = order.getStatus();
+                order.setStatus(OrderStatus.REJECTED);
+                if (statusPublisher != null) {
+                    statusPublisher.publish(order, previousStatus);
+                }
+            }
+        }
+    }
+
+    public synchronized List<Order> getDeferredOrders() {
+        return new ArrayList<>(deferredOrders.values());
+    }
+
+    public synchronized int getBacklog() {
+        return backlog;
+    }
+
+    public synchronized int getBacklog(String instrumentId) {
+        InstrumentBacklog instrumentBacklog = backlogs.get(instrumentId);
+        return instrumentBacklog != null ? instrumentBacklog.count : 0;
+    }
+
+    public synchronized long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    public synchronized long getDeferredCount() {
+        return deferredCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private void admit(Order order, long now) throws OrderException {
+        delegate.addOrder(order);
+        backlogs.computeIfAbsent(order.getInstrument().getId(), instrumentId -> new InstrumentBacklog(now)).count++;
+        backlog++;
+        admittedCount++;
+    }
+
+    private boolean takeToken(int traderKey, long now) {
+        if (traderKey >= tokens.length) {
+            int length = Math.max(traderKey + 1, tokens.length * 2);
+            int previousLength = tokens.length;
+            tokens = Arrays.copyOf(tokens, length);
+            lastRefillTimes = Arrays.copyOf(lastRefillTimes, length);
+            Arrays.fill(lastRefillTimes, previousLength, length, Long.MIN_VALUE);
+        }
+
+        // A trader seen for the first time starts with a full bucket
+        double available = lastRefillTimes[traderKey] == Long.MIN_VALUE
+                ? burst
+                : Math.min(burst, tokens[traderKey] + (now - lastRefillTimes[traderKey]) * tokensPerMilli);
+        lastRefillTimes[traderKey] = now;
+        if (available < 1.0) {
+            tokens[traderKey] = available;
+            return false;
+        }
+        tokens[traderKey] = available - 1.0;
+        return true;
+    }
+
+    // Backlog of one book since it was last matched
+    private static final class InstrumentBacklog {
+        private final long since;
+        private int count;
+
+        InstrumentBacklog(long since) {
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package org.project.impl;
+
+import org.project.enums.OrderStatus;
+import org.project.enums.OrderType;
+import org.project.enums.SelfTradePrevention;
+import org.project.interfaces.OrderBookListener;
+import org.project.interfaces.OrderManager;
+import org.project.utils.CompositeInstrument;
+import org.project.utils.FixedPoint;
+import org.project.utils.Instrument;
+import org.project.utils.InstrumentComponent;
+import org.project.utils.Order;
+import org.project.utils.TopOfBook;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Implied Price Engine (basket prices implied by the outright legs and leg prices implied by the baskets, recomputed per changed top of book)
+public class ImpliedPriceEngine implements OrderBookListener {
+
+    // Price first, then time, sequences come from the order book
+    private static final Comparator<Order> BID_PRIORITY = Comparator.comparingLong(Order::getPriceUnits).reversed()
+            .thenComparingLong(Order::getSequence);
+    private static final Comparator<Order> ASK_PRIORITY = Comparator.comparingLong(Order::getPriceUnits)
+            .thenComparingLong(Order::getSequence);
+
+    private final OrderManager orderManager;
+    private final Map<String, ImpliedBasket> baskets = new HashMap<>();
+    // Leg instrument ID to every registered basket containing it, the only baskets a leg change can move
+    private final Map<String, List<ImpliedBasket>> basketsByLeg = new HashMap<>();
+    private final Map<String, TopOfBook> tops = new HashMap<>();
+    // Resting limit orders of every basket and leg book, kept in step by the order book events, so tops are never scanned for
+    private final Map<String, Ladder> ladders = new HashMap<>();
+    private long recomputationCount;
+
+    public ImpliedPriceEngine(OrderManager orderManager) {
+        this.orderManager = orderManager;
+        orderManager.addOrderBookListener(this);
+    }
+
+    @Override
+    public synchronized void onOrderAdded(Order order) {
+        Ladder ladder = ladders.get(order.getInstrument().getId());
+        if (ladder != null) {
+            ladder.add(order);
+        }
+    }
+
+    @Override
+    public synchronized void onOrderRemoved(Order order) {
+        Ladder ladder = ladders.get(order.getInstrument().getId());
+        if (ladder != null) {
+            ladder.remove(order);
+        }
+    }
+
+    public synchronized void register(CompositeInstrument basket) {
+        if (baskets.containsKey(basket.getId())) {
+            return;
+        }
+        ImpliedBasket impliedBasket = new ImpliedBasket(basket);
+        baskets.put(basket.getId(), impliedBasket);
+        track(basket.getId());
+        for (InstrumentComponent component : basket.getComponents()) {
+            basketsByLeg.computeIfAbsent(component.getInstrument().getId(), legId -> new ArrayList<>()).add(impliedBasket);
+            track(component.getInstrument().getId());
+        }
+        updateTops(impliedBasket);
+        recompute(impliedBasket);
+    }
+
+    private void track(String instrumentId) {
+        // The only scan of a book, once when a basket first needs it, book events keep the ladder current after that
+        if (!ladders.containsKey(instrumentId)) {
+            Ladder ladder = new Ladder();
+            for (Order order : orderManager.getOrders(instrumentId)) {
+                if (order.getInstrument().getId().equals(instrumentId)) {
+                    ladder.add(order);
+                }
+            }
+            ladders.put(instrumentId, ladder);
+        }
+    }
+
+    // Re-reads the tops of a book after it was matched, returns the baskets whose top of book or implied prices moved
+    public synchronized List<CompositeInstrument> refresh(String instrumentId) {
+        ImpliedBasket basket = baskets.get(instrumentId);
+        if (basket != null) {
+            if (!updateTops(basket)) {
+                return List.of();
+            }
+            recompute(basket);
+            return List.of(basket.instrument);
+        }
+
+        List<ImpliedBasket> dependents = basketsByLeg.get(instrumentId);
+        if (dependents == null) {
+            return List.of();
+        }
+        // Matching a leg book also trades the basket orders resting on it, so their tops are re-read too
+        boolean legChanged = updateTop(instrumentId);
+        List<CompositeInstrument> changed = new ArrayList<>();
+        for (ImpliedBasket dependent : dependents) {
+            if (updateTop(dependent.instrument.getId()) | legChanged) {
+                recompute(dependent);
+                changed.add(dependent.instrument);
+            }
+        }
+        return changed;
+    }
+
+    // Next executable cross between a basket order and the outright legs, or null
+    public synchronized Match findMatch(CompositeInstrument basket, SelfTradePrevention selfTradePrevention) {
+        ImpliedBasket impliedBasket = baskets.get(basket.getId());
+        if (impliedBasket == null || !impliedBasket.crosses(topOf(basket.getId()))) {
+            return null;
+        }
+        // Fills since the last refresh only show in the ladders, the tops are re-read before anything executes
+        if (updateTops(impliedBasket)) {
+            recompute(impliedBasket);
+        }
+        TopOfBook basketTop = topOf(basket.getId());
+        if (!impliedBasket.crosses(basketTop) || impliedBasket.quantityStepUnits <= 0) {
+            return null;
+        }
+
+        boolean basketBuys = basketTop.hasBid() && impliedBasket.askUnits != FixedPoint.NONE
+                && basketTop.getBidUnits() >= impliedBasket.askUnits;
+        Order basketOrder = basketBuys ? basketTop.getBestBid() : basketTop.getBestAsk();
+
+        // With self-trade prevention on, a leg skips the basket trader's own orders for the next best counterparty
+        boolean skipOwnOrders = selfTradePrevention != SelfTradePrevention.NONE;
+        int legCount = impliedBasket.legs.length;
+        Order[] counterparties = new Order[legCount];
+        long legsPriceUnits = 0;
+        long capacity = basketOrder.getQuantityUnits();
+        for (int i = 0; i < legCount; i++) {
+            Ladder ladder = ladders.get(impliedBasket.legs[i].getId());
+            Order counterparty = ladder.best(basketBuys ? ladder.asks : ladder.bids, skipOwnOrders ? basketOrder.getTraderKey() : -1);
+            if (counterparty == null) {
+                return null;
+            }
+            counterparties[i] = counterparty;
+            legsPriceUnits += FixedPoint.multiply(counterparty.getPriceUnits(), impliedBasket.weights[i]);
+            capacity = Math.min(capacity, (long) (counterparty.getQuantityUnits() / impliedBasket.weights[i]));
+        }
+        // A skipped order may have been the one making the cross, the counterparties actually used must still cross
+        if (basketBuys ? basketOrder.getPriceUnits() < legsPriceUnits : basketOrder.getPriceUnits() > legsPriceUnits) {
+            return null;
+        }
+
+        // Every leg must receive whole lots, otherwise the basket would be charged for more than its legs delivered
+        long basketQuantity = FixedPoint.roundDownToMultiple(capacity, impliedBasket.quantityStepUnits);
+        if (basketQuantity <= 0) {
+            return null;
+        }
+        long[] legQuantities = new long[legCount];
+        for (int i = 0; i < legCount; i++) {
+            legQuantities[i] = FixedPoint.multiply(basketQuantity, impliedBasket.weights[i]);
+            if (!isWholeLegQuantity(basketQuantity, impliedBasket.weights[i], impliedBasket.legs[i].getLotUnits())
+                    || legQuantities[i] <= 0 || legQuantities[i] > counterparties[i].getQuantityUnits()) {
+                return null;
+            }
+        }
+        return new Match(basketOrder, basketQuantity, counterparties, legQuantities);
+    }
+
+    public synchronized TopOfBook getTopOfBook(String instrumentId) {
+        return topOf(instrumentId);
+    }
+
+    // Price at which the legs' best offers together sell one basket
+    public synchronized double getImpliedAsk(String basketId) {
+        ImpliedBasket basket = baskets.get(basketId);
+        return basket != null ? toPrice(basket.askUnits) : Double.NaN;
+    }
+
+    // Price at which the legs' best bids together buy one basket
+    public synchronized double getImpliedBid(String basketId) {
+        ImpliedBasket basket = baskets.get(basketId);
+        return basket != null ? toPrice(basket.bidUnits) : Double.NaN;
+    }
+
+    public synchronized double getImpliedAskQuantity(String basketId) {
+        ImpliedBasket basket = baskets.get(basketId);
+        return basket != null ? FixedPoint.toDouble(basket.askQuantityUnits) : 0.0;
+    }
+
+    public synchronized double getImpliedBidQuantity(String basketId) {
+        ImpliedBasket basket = baskets.get(basketId);
+        return basket != null ? FixedPoint.toDouble(basket.bidQuantityUnits) : 0.0;
+    }
+
+    // Price at which a leg can be sold into the basket's best bid while the other legs are bought at their best offers
+    public synchronized double getImpliedLegBid(String basketId, String legId) {
+        ImpliedBasket basket = baskets.get(basketId);
+        int leg = basket != null ? basket.indexOf(legId) : -1;
+        return leg >= 0 ? toPrice(basket.legBidUnits[leg]) : Double.NaN;
+    }
+
+    // Price at which a leg can be bought out of the basket's best offer while the other legs are sold at their best bids
+    public synchronized double getImpliedLegAsk(String basketId, String legId) {
+        ImpliedBasket basket = baskets.get(basketId);
+        int leg = basket != null ? basket.indexOf(legId) : -1;
+        return leg >= 0 ? toPrice(basket.legAskUnits[leg]) : Double.NaN;
+    }
+
+    public synchronized long getRecomputationCount() {
+        return recomputationCount;
+    }
+
+    private boolean updateTops(ImpliedBasket basket) {
+        boolean changed = updateTop(basket.instrument.getId());
+        for (Instrument leg : basket.legs) {
+            changed |= updateTop(leg.getId());
+        }
+        return changed;
+    }
+
+    private boolean updateTop(String instrumentId) {
+        Ladder ladder = ladders.get(instrumentId);
+        Order bestBid = ladder != null ? ladder.best(ladder.bids, -1) : null;
+        Order bestAsk = ladder != null ? ladder.best(ladder.asks, -1) : null;
+        TopOfBook top = bestBid == null && bestAsk == null ? TopOfBook.EMPTY : new TopOfBook(bestBid, bestAsk);
+        TopOfBook previous = tops.put(instrumentId, top);
+        return previous == null || !previous.sameAs(top);
+    }
+
+    private void recompute(ImpliedBasket basket) {
+        int legCount = basket.legs.length;
+        TopOfBook[] legTops = new TopOfBook[legCount];
+        for (int i = 0; i < legCount; i++) {
+            legTops[i] = topOf(basket.legs[i].getId());
+        }
+
+        // Implied-in, the basket priced off the outright tops and sized by the thinnest leg
+        basket.bidUnits = 0;
+        basket.askUnits = 0;
+        basket.bidQuantityUnits = Long.MAX_VALUE;
+        basket.askQuantityUnits = Long.MAX_VALUE;
+        for (int i = 0; i < legCount; i++) {
+            double weight = basket.weights[i];
+            if (legTops[i].hasBid() && basket.bidUnits != FixedPoint.NONE) {
+                basket.bidUnits += FixedPoint.multiply(legTops[i].getBidUnits(), weight);
+                basket.bidQuantityUnits = Math.min(basket.bidQuantityUnits, (long) (legTops[i].getBidQuantityUnits() / weight));
+            } else {
+                basket.bidUnits = FixedPoint.NONE;
+                basket.bidQuantityUnits = 0;
+            }
+            if (legTops[i].hasAsk() && basket.askUnits != FixedPoint.NONE) {
+                basket.askUnits += FixedPoint.multiply(legTops[i].getAskUnits(), weight);
+                basket.askQuantityUnits = Math.min(basket.askQuantityUnits, (long) (legTops[i].getAskQuantityUnits() / weight));
+            } else {
+                basket.askUnits = FixedPoint.NONE;
+                basket.askQuantityUnits = 0;
+            }
+        }
+
+        // Implied-out, each leg priced off the basket's own top and the opposite side of the other legs
+        TopOfBook basketTop = topOf(basket.instrument.getId());
+        for (int i = 0; i < legCount; i++) {
+            long legBid = basketTop.hasBid() ? basketTop.getBidUnits() : FixedPoint.NONE;
+            long legAsk = basketTop.hasAsk() ? basketTop.getAskUnits() : FixedPoint.NONE;
+            for (int j = 0; j < legCount; j++) {
+                if (j == i) {
+                    continue;
+                }
+                legBid = legBid != FixedPoint.NONE && legTops[j].hasAsk()
+                        ? legBid - FixedPoint.multiply(legTops[j].getAskUnits(), basket.weights[j]) : FixedPoint.NONE;
+                legAsk = legAsk != FixedPoint.NONE && legTops[j].hasBid()
+                        ? legAsk - FixedPoint.multiply(legTops[j].getBidUnits(), basket.weights[j]) : FixedPoint.NONE;
+            }
+            // Rounded onto the leg's tick grid in the basket's favour, bids down and offers up
+            long tick = basket.legs[i].getTickUnits();
+            basket.legBidUnits[i] = legBid == FixedPoint.NONE ? FixedPoint.NONE
+                    : FixedPoint.roundDownToMultiple(FixedPoint.multiply(legBid, 1.0 / basket.weights[i]), tick);
+            basket.legAskUnits[i] = legAsk == FixedPoint.NONE ? FixedPoint.NONE
+                    : -FixedPoint.roundDownToMultiple(-FixedPoint.multiply(legAsk, 1.0 / basket.weights[i]), tick);
+        }
+        recomputationCount++;
+    }
+
+    private TopOfBook topOf(String instrumentId) {
+        return tops.getOrDefault(instrumentId, TopOfBook.EMPTY);
+    }
+
+    private static boolean isRestingLimitOrder(Order order) {
+        // Market orders never rest, so they take no part in implied prices
+        return (order.getStatus() == OrderStatus.PENDING || order.getStatus() == OrderStatus.PARTIALLY_FILLED)
+                && order.getQuantityUnits() > 0 && order.getPriceUnits() != FixedPoint.NONE;
+    }
+
+    private static boolean isWholeLegQuantity(long basketQuantityUnits, double weight, long legLotUnits) {
+        double legQuantity = basketQuantityUnits * weight;
+        return legQuantity == Math.rint(legQuantity) && FixedPoint.isMultipleOf((long) legQuantity, legLotUnits);
+    }
+
+    private static double toPrice(long units) {
+        return units == FixedPoint.NONE ? Double.NaN : FixedPoint.toDouble(units);
+    }
+
+    // Resting limit orders of one book in priority order, an update is O(log n) instead of a scan of the book
+    private static final class Ladder {
+        private final TreeSet<Order> bids = new TreeSet<>(BID_PRIORITY);
+        private final TreeSet<Order> asks = new TreeSet<>(ASK_PRIORITY);
+
+        void add(Order order) {
+            if (isRestingLimitOrder(order)) {
+                (order.getType() == OrderType.BUY ? bids : asks).add(order);
+            }
+        }
+
+        void remove(Order order) {
+            if (order.getPriceUnits() != FixedPoint.NONE) {
+                (order.getType() == OrderType.BUY ? bids : asks).remove(order);
+            }
+        }
+
+        // Best resting order on one side, skipping the given trader's orders unless the key is negative
+        Order best(TreeSet<Order> side, int skippedTraderKey) {
+            Iterator<Order> iterator = side.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                if (!isRestingLimitOrder(order)) {
+                    // Filled and closed orders stay in the book until cancelled, but never rest again
+                    iterator.remove();
+                } else if (order.getTraderKey() != skippedTraderKey || skippedTraderKey < 0) {
+                    return order;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Implied prices of one registered basket, legs in component order
+    private static final class ImpliedBasket {
+        // Weights like 0.25 or 0.1 need a few leg lots at most, anything beyond this never gets implied fills
+        private static final int MAX_STEP_LOTS = 10_000;
+
+        private final CompositeInstrument instrument;
+        private final Instrument[] legs;
+        private final double[] weights;
+        private final long[] legBidUnits;
+        private final long[] legAskUnits;
+        private long bidUnits = FixedPoint.NONE;
+        private long askUnits = FixedPoint.NONE;
+        private long bidQuantityUnits;
+        private long askQuantityUnits;
+        // Smallest basket quantity that gives every leg whole lots, 0 when the weights admit none
+        private final long quantityStepUnits;
+
+        ImpliedBasket(CompositeInstrument instrument) {
+            this.instrument = instrument;
+            List<InstrumentComponent> components = instrument.getComponents();
+            this.legs = new Instrument[components.size()];
+            this.weights = new double[components.size()];
+            for (int i = 0; i < components.size(); i++) {
+                legs[i] = components.get(i).getInstrument();
+                weights[i] = components.get(i).getWeight();
+            }
+            this.legBidUnits = new long[legs.length];
+            this.legAskUnits = new long[legs.length];
+            this.quantityStepUnits = quantityStep(instrument.getLotUnits());
+        }
+
+        private long quantityStep(long basketLotUnits) {
+            // The basket quantities giving one leg whole lots are the multiples of the smallest one, so the step is their lcm
+            long step = basketLotUnits;
+            for (int i = 0; i < legs.length; i++) {
+                long legStep = 0;
+                for (int lots = 1; lots <= MAX_STEP_LOTS && legStep == 0; lots++) {
+                    double basketQuantity = lots * (double) legs[i].getLotUnits() / weights[i];
+                    if (basketQuantity == Math.rint(basketQuantity)
+                            && isWholeLegQuantity((long) basketQuantity, weights[i], legs[i].getLotUnits())) {
+                        legStep = (long) basketQuantity;
+                    }
+                }
+                if (legStep == 0) {
+                    return 0;
+                }
+                try {
+                    step = Math.multiplyExact(step / gcd(step, legStep), legStep);
+                } catch (ArithmeticException e) {
+                    return 0;
+                }
+            }
+            return step;
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long remainder = a % b;
+                a = b;
+                b = remainder;
+            }
+            return a;
+        }
+
+        boolean crosses(TopOfBook basketTop) {
+            boolean buyCrosses = basketTop.hasBid() && askUnits != FixedPoint.NONE && askQuantityUnits > 0
+                    && basketTop.getBidUnits() >= askUnits;
+            boolean sellCrosses = basketTop.hasAsk() && bidUnits != FixedPoint.NONE && bidQuantityUnits > 0
+                    && basketTop.getAskUnits() <= bidUnits;
+            return buyCrosses || sellCrosses;
+        }
+
+        int indexOf(String legId) {
+            for (int i = 0; i < legs.length; i++) {
+                if (legs[i].getId().equals(legId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Match (a basket order against the best outright order of each leg, legs in component order)
+    public static class Match {
+        private final Order basketOrder;
+        private final long basketQuantityUnits;
+        private final Order[] counterparties;
+        private final long[] legQuantityUnits;
+
+        private Match(Order basketOrder, long basketQuantityUnits, Order[] counterparties, long[] legQuantityUnits) {
+            this.basketOrder = basketOrder;
+            this.basketQuantityUnits = basketQuantityUnits;
+            this.counterparties = counterparties;
+            this.legQuantityUnits = legQuantityUnits;
+        }
+
+        public Order getBasketOrder() {
+            return basketOrder;
+        }
+
+        public long getBasketQuantityUnits() {
+            return basketQuantityUnits;
+        }
+
+        public Order getCounterparty(int leg) {
+            return counterparties[leg];
+        }
+
+        public long getLegQuantityUnits(int leg) {
+            return legQuantityUnits[leg];
+        }
+
+        public int getLegCount() {
+            return counterparties.length;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package org.project.impl;
 
+import org.project.enums.OrderStatus;
 import org.project.enums.OrderType;
+import org.project.enums.TimeInForce;
+import org.project.interfaces.OrderBookListener;
+import org.project.interfaces.TimeSource;
 import org.project.utils.CompositeInstrument;
+import org.project.utils.FixedPoint;
+import org.project.utils.HierarchicalTimingWheel;
 import org.project.utils.InstrumentComponent;
 import org.project.utils.Order;
 import org.project.exceptions.OrderException;
@@ -15,23 +21,134 @@ import java.util.logging.Logger;
 public class InMemoryOrderManager implements OrderManager {
     private static final Logger LOGGER = Logger.getLogger(InMemoryOrderManager.class.getName());
 
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final long EXPIRY_TICK_MILLIS = 1;
+
     private final Map<String, Order> orders = new LinkedHashMap<>();
+    // Composite orders are also indexed on their own, matchAll partitions the books from them
+    private final Map<String, Order> compositeOrders = new LinkedHashMap<>();
+    private final Map<String, HierarchicalTimingWheel.Timeout<Order>> expiryTimers = new HashMap<>();
+    private final TimeSource timeSource;
+    private final HierarchicalTimingWheel<Order> expiryWheel;
+    private final OrderStatusPublisher statusPublisher;
+    private OrderBookListener[] bookListeners = new OrderBookListener[0];
+    private long nextSequence = 1;
+
+    public InMemoryOrderManager() {
+        this(System::currentTimeMillis);
+    }
+
+    public InMemoryOrderManager(TimeSource timeSource) {
+        this(timeSource, null);
+    }
+
+    // Pass the engine's publisher so subscribers also see orders expiring
+    public InMemoryOrderManager(TimeSource timeSource, OrderStatusPublisher statusPublisher) {
+        this.timeSource = timeSource;
+        this.statusPublisher = statusPublisher;
+        this.expiryWheel = new HierarchicalTimingWheel<>(EXPIRY_TICK_MILLIS, timeSource.currentTimeMillis());
+    }
 
     @Override
     public void addOrder(Order order) throws OrderException {
+        expireOrders();
+        validateOrder(order);
+        String orderId = order.getId();
+        removeOrder(orderId);
+        order.setSequence(nextSequence++);
+        orders.put(orderId, order);
+        if (order.isCompositeOrder()) {
+            compositeOrders.put(orderId, order);
+        }
+        for (OrderBookListener listener : bookListeners) {
+            listener.onOrderAdded(order);
+        }
+        if (order.getTimeInForce() != TimeInForce.GOOD_TILL_CANCEL) {
+            expiryTimers.put(orderId, expiryWheel.schedule(order, getExpireTime(order)));
+        }
+    }
+
+    @Override
+    public void validateOrder(Order order) throws OrderException {
         if (!isValidOrder(order)) {
             throw new OrderException("Invalid order: " + order.getId());
         }
-        String orderId = order.getId();
-        orders.put(orderId, order);
     }
 
     @Override
     public void cancelOrder(String orderId) throws OrderException {
+        expireOrders();
         if (!orders.containsKey(orderId)) {
             throw new OrderException("Order not found: " + orderId);
         }
-        orders.remove(orderId);
+        removeOrder(orderId);
+    }
+
+    @Override
+    public void expireOrders() {
+        // Only deadlines that are due are visited, resting orders are never scanned
+        expiryWheel.advance(timeSource.currentTimeMillis(), this::expireOrder);
+    }
+
+    public int getPendingExpiryCount() {
+        return expiryWheel.size();
+    }
+
+    private void expireOrder(Order order) {
+        expiryTimers.remove(order.getId());
+        orders.remove(order.getId());
+        compositeOrders.remove(order.getId());
+        notifyRemoved(order);
+        if (!order.isFilled()) {
+            OrderStatus previousStatus = order.getStatus();
+            order.setStatus(OrderStatus.EXPIRED);
+            if (statusPublisher != null) {
+                statusPublisher.publish(order, previousStatus);
+            }
+        }
+        LOGGER.log(Level.INFO, "Order expired: " + order.getId());
+    }
+
+    private void removeOrder(String orderId) {
+        // Every removal from the book also drops the order's expiry deadline
+        Order removed = orders.remove(orderId);
+        compositeOrders.remove(orderId);
+        if (removed != null) {
+            notifyRemoved(removed);
+        }
+        HierarchicalTimingWheel.Timeout<Order> expiryTimer = expiryTimers.remove(orderId);
+        if (expiryTimer != null) {
+            expiryTimer.cancel();
+        }
+    }
+
+    private long getExpireTime(Order order) {
+        if (order.getTimeInForce() == TimeInForce.DAY) {
+            // Day orders expire at the end of the current UTC day
+            return (timeSource.currentTimeMillis() / DAY_MILLIS + 1) * DAY_MILLIS;
+        }
+        return order.getExpireTime();
+    }
+
+    @Override
+    public void addOrderBookListener(OrderBookListener listener) {
+        OrderBookListener[] listeners = Arrays.copyOf(bookListeners, bookListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        bookListeners = listeners;
+        for (Order order : orders.values()) {
+            listener.onOrderAdded(order);
+        }
+    }
+
+    private void notifyRemoved(Order order) {
+        for (OrderBookListener listener : bookListeners) {
+            listener.onOrderRemoved(order);
+        }
+    }
+
+    @Override
+    public Collection<Order> getCompositeOrders() {
+        return Collections.unmodifiableCollection(compositeOrders.values());
     }
 
     @Override
@@ -46,10 +163,9 @@ public class InMemoryOrderManager implements OrderManager {
     @Override
     public List<Order> getOrders(String instrumentId, OrderType orderType) {
         return orders.values().stream()
-                .filter(order -> order.getInstrument().getId().equals(instrumentId) &&
-                        order.getType() == orderType ||
+                .filter(order -> order.getType() == orderType && (order.getInstrument().getId().equals(instrumentId) ||
                 (order.isCompositeOrder() && ((CompositeInstrument) order.getInstrument()).getComponents().stream()
-                        .anyMatch(component -> component.getInstrument().getId().equals(instrumentId))))
+                        .anyMatch(component -> component.getInstrument().getId().equals(instrumentId)))))
                 .toList();
     }
 
@@ -79,11 +195,29 @@ public class InMemoryOrderManager implements OrderManager {
         }
 
         // Check if quantity is non-positive
-        if (order.getQuantity() <= 0) {
+        if (order.getQuantityUnits() <= 0) {
             LOGGER.log(Level.SEVERE,"Invalid order: Quantity is non-positive.");
             return false;
         }
 
+        // Check if quantity is a whole number of lots
+        if (!FixedPoint.isMultipleOf(order.getQuantityUnits(), order.getInstrument().getLotUnits())) {
+            LOGGER.log(Level.SEVERE,"Invalid order: Quantity is not a multiple of the lot size.");
+            return false;
+        }
+
+        // Check if limit price is on the tick grid
+        if (order.getPriceUnits() != FixedPoint.NONE && !FixedPoint.isMultipleOf(order.getPriceUnits(), order.getInstrument().getTickUnits())) {
+            LOGGER.log(Level.SEVERE,"Invalid order: Price is not a multiple of the tick size.");
+            return false;
+        }
+
+        // Check if a good-till-date order is already past its deadline
+        if (order.getTimeInForce() == TimeInForce.GOOD_TILL_DATE && order.getExpireTime() <= timeSource.currentTimeMillis()) {
+            LOGGER.log(Level.SEVERE,"Invalid order: Good-till-date order is already expired.");
+            return false;
+        }
+
         // Check if composite order instrment size is not between 1 and 3 and it's not adirect trade
         if(order.isCompositeOrder()){
             CompositeInstrument compositeInstrument = (CompositeInstrument) order.getInstrument();
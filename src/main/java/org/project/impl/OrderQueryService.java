@@ -0,0 +1,138 @@
+package org.project.impl;
+
+import org.project.enums.OrderStatus;
+import org.project.interfaces.OrderBookListener;
+import org.project.interfaces.OrderManager;
+import org.project.utils.CompositeInstrument;
+import org.project.utils.InstrumentComponent;
+import org.project.utils.Order;
+import org.project.utils.OrderBookView;
+import org.project.utils.OrderSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Order Query Service (publishes immutable book views, readers never touch the live order book)
+public class OrderQueryService implements OrderBookListener {
+
+    // Orders whose published snapshot can still change, filled and closed orders drop out after their last publish
+    private final Map<String, Map<String, Order>> openOrdersByInstrument = new HashMap<>();
+    // Leg instrument ID to the baskets with resting orders on it and how many
+    private final Map<String, Map<String, Integer>> basketsByLeg = new HashMap<>();
+    private volatile OrderBookView currentView = OrderBookView.empty();
+
+    public OrderQueryService(OrderManager orderManager) {
+        orderManager.addOrderBookListener(this);
+    }
+
+    // Must be called from the thread that owns the order book, usually right after a matching pass
+    public synchronized OrderBookView publish(Collection<String> instrumentIds) {
+        // Composite orders resting on these books change together with them, so their slices are refreshed too
+        Set<String> touchedInstruments = new LinkedHashSet<>(instrumentIds);
+        for (String instrumentId : instrumentIds) {
+            Map<String, Integer> baskets = basketsByLeg.get(instrumentId);
+            if (baskets != null) {
+                touchedInstruments.addAll(baskets.keySet());
+            }
+        }
+        // Only orders that were filled since the last publish get new snapshots
+        OrderBookView view = currentView;
+        List<OrderSnapshot> updated = new ArrayList<>();
+        for (String instrumentId : touchedInstruments) {
+            Map<String, Order> openOrders = openOrdersByInstrument.get(instrumentId);
+            if (openOrders == null) {
+                continue;
+            }
+            Iterator<Order> iterator = openOrders.values().iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                OrderSnapshot published = view.getOrder(instrumentId, order.getId());
+                if (published == null || !published.isCurrent(order)) {
+                    updated.add(new OrderSnapshot(order));
+                }
+                if (!isOpen(order)) {
+                    iterator.remove();
+                }
+            }
+            if (openOrders.isEmpty()) {
+                openOrdersByInstrument.remove(instrumentId);
+            }
+        }
+        return apply(updated, List.of());
+    }
+
+    @Override
+    public synchronized void onOrderAdded(Order order) {
+        String instrumentId = order.getInstrument().getId();
+        if (isOpen(order)) {
+            openOrdersByInstrument.computeIfAbsent(instrumentId, id -> new LinkedHashMap<>()).put(order.getId(), order);
+        }
+        if (order.getInstrument() instanceof CompositeInstrument compositeInstrument) {
+            for (InstrumentComponent component : compositeInstrument.getComponents()) {
+                basketsByLeg.computeIfAbsent(component.getInstrument().getId(), id -> new HashMap<>())
+                        .merge(instrumentId, 1, Integer::sum);
+            }
+        }
+        apply(List.of(new OrderSnapshot(order)), List.of());
+    }
+
+    @Override
+    public synchronized void onOrderRemoved(Order order) {
+        // Cancelled, expired and replaced orders leave the view right away, not at the next pass on their book
+        String instrumentId = order.getInstrument().getId();
+        if (currentView.getOrder(instrumentId, order.getId()) == null) {
+            return;
+        }
+        Map<String, Order> openOrders = openOrdersByInstrument.get(instrumentId);
+        if (openOrders != null && openOrders.remove(order.getId()) != null && openOrders.isEmpty()) {
+            openOrdersByInstrument.remove(instrumentId);
+        }
+        if (order.getInstrument() instanceof CompositeInstrument compositeInstrument) {
+            for (InstrumentComponent component : compositeInstrument.getComponents()) {
+                String legId = component.getInstrument().getId();
+                Map<String, Integer> baskets = basketsByLeg.get(legId);
+                if (baskets != null && baskets.merge(instrumentId, -1, Integer::sum) == 0) {
+                    baskets.remove(instrumentId);
+                    if (baskets.isEmpty()) {
+                        basketsByLeg.remove(legId);
+                    }
+                }
+            }
+        }
+        apply(List.of(), List.of(new OrderSnapshot(order)));
+    }
+
+    private OrderBookView apply(Collection<OrderSnapshot> updated, Collection<OrderSnapshot> removed) {
+        // Per-order changes only, the rest of the instrument's slice is shared with the previous view
+        OrderBookView view = currentView.withOrders(updated, removed);
+        currentView = view;
+        return view;
+    }
+
+    private static boolean isOpen(Order order) {
+        return order.getStatus() == OrderStatus.PENDING || order.getStatus() == OrderStatus.PARTIALLY_FILLED;
+    }
+
+    public OrderBookView getView() {
+        return currentView;
+    }
+
+    public List<OrderSnapshot> getOrdersByInstrument(String instrumentId) {
+        return currentView.getOrdersByInstrument(instrumentId);
+    }
+
+    public List<OrderSnapshot> getOrdersByTrader(String traderId) {
+        return currentView.getOrdersByTrader(traderId);
+    }
+
+    public List<OrderSnapshot> getOrdersByStatus(OrderStatus status) {
+        return currentView.getOrdersByStatus(status);
+    }
+}
@@ -0,0 +1,194 @@
+package org.project.impl;
+
+import org.project.enums.OrderStatus;
+import org.project.interfaces.OrderStatusListener;
+import org.project.utils.ExecutionReport;
+import org.project.utils.FixedPoint;
+import org.project.utils.Order;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Order Status Publisher (pushes execution reports to per-trader and per-order subscribers)
+public class OrderStatusPublisher {
+    private static final Logger LOGGER = Logger.getLogger(OrderStatusPublisher.class.getName());
+
+    // Reports delivered per drain before a subscriber yields its worker to the others
+    private static final int DRAIN_BATCH_SIZE = 256;
+    private static final int DEFAULT_SUBSCRIBER_CAPACITY = 65_536;
+
+    private final Map<String, List<Subscription>> traderSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, List<Subscription>> orderSubscriptions = new ConcurrentHashMap<>();
+    private final Executor deliveryExecutor;
+    private final int subscriberCapacity;
+
+    public OrderStatusPublisher() {
+        // One worker per core, a slow listener gives its worker up after every batch so the others still get turns.
+        // Each subscriber has at most one drain queued, so the pool's task queue is bounded by the subscriber count.
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "order-status-delivery");
+            thread.setDaemon(true);
+            return thread;
+        }), DEFAULT_SUBSCRIBER_CAPACITY);
+    }
+
+    public OrderStatusPublisher(Executor deliveryExecutor) {
+        this(deliveryExecutor, DEFAULT_SUBSCRIBER_CAPACITY);
+    }
+
+    public OrderStatusPublisher(Executor deliveryExecutor, int subscriberCapacity) {
+        if (subscriberCapacity <= 0) {
+            throw new IllegalArgumentException("Subscriber capacity must be positive: " + subscriberCapacity);
+        }
+        this.deliveryExecutor = deliveryExecutor;
+        this.subscriberCapacity = subscriberCapacity;
+    }
+
+    public Subscription subscribeTrader(String traderId, OrderStatusListener listener) {
+        return subscribe(traderSubscriptions, traderId, listener);
+    }
+
+    public Subscription subscribeOrder(String orderId, OrderStatusListener listener) {
+        return subscribe(orderSubscriptions, orderId, listener);
+    }
+
+    private Subscription subscribe(Map<String, List<Subscription>> subscriptions, String key, OrderStatusListener listener) {
+        Subscription subscription = new Subscription(subscriptions, key, listener);
+        // Added inside compute, so a concurrent cancel cannot drop the list this subscription was just added to
+        subscriptions.compute(key, (k, keySubscriptions) -> {
+            List<Subscription> result = keySubscriptions != null ? keySubscriptions : new CopyOnWriteArrayList<>();
+            result.add(subscription);
+            return result;
+        });
+        return subscription;
+    }
+
+    // Traders and orders with at least one live subscription
+    public int getSubscribedKeyCount() {
+        return traderSubscriptions.size() + orderSubscriptions.size();
+    }
+
+    public void publish(Order order, OrderStatus previousStatus) {
+        // Nothing is allocated while nobody listens, which keeps the matching path cheap
+        if (traderSubscriptions.isEmpty() && orderSubscriptions.isEmpty()) {
+            return;
+        }
+        List<Subscription> traderListeners = traderSubscriptions.get(order.getTraderId());
+        List<Subscription> orderListeners = orderSubscriptions.get(order.getId());
+        if ((traderListeners == null || traderListeners.isEmpty()) && (orderListeners == null || orderListeners.isEmpty())) {
+            return;
+        }
+
+        ExecutionReport report = new ExecutionReport(order.getId(), order.getTraderId(), order.getInstrument().getId(),
+                previousStatus, order.getStatus(), FixedPoint.toDouble(order.getQuantityUnits()));
+        enqueue(traderListeners, report);
+        enqueue(orderListeners, report);
+    }
+
+    private void enqueue(List<Subscription> subscriptions, ExecutionReport report) {
+        if (subscriptions != null) {
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(report);
+            }
+        }
+    }
+
+    // Subscription (one bounded lock-free queue per subscriber, drained on the delivery executor)
+    public class Subscription {
+        private final Map<String, List<Subscription>> registry;
+        private final String key;
+        private final OrderStatusListener listener;
+        private final ConcurrentLinkedQueue<ExecutionReport> pendingReports = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicLong droppedCount = new AtomicLong();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private Subscription(Map<String, List<Subscription>> registry, String key, OrderStatusListener listener) {
+            this.registry = registry;
+            this.key = key;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            // The key goes with its last subscription, so per-order keys do not pile up and the idle fast path stays on
+            registry.computeIfPresent(key, (k, subscriptions) -> {
+                subscriptions.remove(this);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+            pendingReports.clear();
+            pendingCount.set(0);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public int getPendingCount() {
+            return pendingCount.get();
+        }
+
+        // A subscriber that fell a full queue behind has missed reports and should re-read its orders
+        public boolean isOverflowed() {
+            return droppedCount.get() > 0;
+        }
+
+        public long getDroppedCount() {
+            return droppedCount.get();
+        }
+
+        private void offer(ExecutionReport report) {
+            if (cancelled) {
+                return;
+            }
+            // A full queue drops the new report, one stuck listener cannot grow the heap without limit
+            if (pendingCount.incrementAndGet() > subscriberCapacity) {
+                pendingCount.decrementAndGet();
+                if (droppedCount.getAndIncrement() == 0) {
+                    LOGGER.log(Level.WARNING, "Order status subscriber for " + key + " overflowed, dropping reports");
+                }
+                return;
+            }
+            pendingReports.offer(report);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            // Only one drain per subscriber is in flight, so reports stay in order
+            if (drainScheduled.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int delivered = 0;
+            ExecutionReport report;
+            while (!cancelled && delivered < DRAIN_BATCH_SIZE && (report = pendingReports.poll()) != null) {
+                pendingCount.decrementAndGet();
+                try {
+                    listener.onExecutionReport(report);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Order status listener failed for order: " + report.getOrderId(), e);
+                }
+                delivered++;
+            }
+            drainScheduled.set(false);
+
+            // Reports offered after the last poll, or left over from a full batch, need another drain
+            if (!cancelled && !pendingReports.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
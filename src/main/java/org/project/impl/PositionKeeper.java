@@ -0,0 +1,82 @@
+package org.project.impl;
+
+import org.project.enums.OrderType;
+import org.project.interfaces.MarketDataProvider;
+import org.project.interfaces.TradeListener;
+import org.project.utils.FixedPoint;
+import org.project.utils.Order;
+import org.project.utils.Position;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Position Keeper (per-trader, per-instrument positions and P&L, updated on every fill)
+public class PositionKeeper implements TradeListener {
+
+    private final MarketDataProvider marketDataProvider;
+    private final Map<String, Map<String, AtomicReference<Position>>> positions = new ConcurrentHashMap<>();
+
+    public PositionKeeper(MarketDataProvider marketDataProvider) {
+        this.marketDataProvider = marketDataProvider;
+    }
+
+    @Override
+    public void onTrade(Order buyOrder, Order sellOrder, long quantityUnits, long priceUnits) {
+        // Composite legs arrive with their component instrument, so baskets are attributed per component
+        String instrumentId = buyOrder.getInstrument().getId();
+        applyFill(buyOrder.getTraderId(), instrumentId, buyOrder.getType() == OrderType.SELL ? -quantityUnits : quantityUnits, priceUnits);
+        applyFill(sellOrder.getTraderId(), instrumentId, sellOrder.getType() == OrderType.BUY ? quantityUnits : -quantityUnits, priceUnits);
+    }
+
+    private void applyFill(String traderId, String instrumentId, long signedQuantityUnits, long priceUnits) {
+        AtomicReference<Position> position = positions
+                .computeIfAbsent(traderId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(instrumentId, id -> new AtomicReference<>(Position.flat(traderId, instrumentId)));
+
+        // Lock-free update, readers always see a complete immutable position
+        Position current;
+        do {
+            current = position.get();
+        } while (!position.compareAndSet(current, current.withFill(signedQuantityUnits, priceUnits)));
+    }
+
+    public Position getPosition(String traderId, String instrumentId) {
+        Map<String, AtomicReference<Position>> traderPositions = positions.get(traderId);
+        AtomicReference<Position> position = traderPositions != null ? traderPositions.get(instrumentId) : null;
+        return position != null ? position.get() : Position.flat(traderId, instrumentId);
+    }
+
+    public Map<String, Position> getPositions(String traderId) {
+        Map<String, AtomicReference<Position>> traderPositions = positions.get(traderId);
+        if (traderPositions == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Position> snapshot = new LinkedHashMap<>();
+        traderPositions.forEach((instrumentId, position) -> snapshot.put(instrumentId, position.get()));
+        return snapshot;
+    }
+
+    public double getUnrealizedPnl(String traderId, String instrumentId) {
+        // Unrealized P&L is marked to the current market price on every read
+        return getPosition(traderId, instrumentId).getUnrealizedPnl(marketDataProvider.getMarketPrice(instrumentId));
+    }
+
+    public double getRealizedPnl(String traderId) {
+        long realizedPnlUnits = 0;
+        for (Position position : getPositions(traderId).values()) {
+            realizedPnlUnits += position.getRealizedPnlUnits();
+        }
+        return FixedPoint.toDouble(realizedPnlUnits);
+    }
+
+    public double getTotalPnl(String traderId) {
+        double totalPnl = 0.0;
+        for (Position position : getPositions(traderId).values()) {
+            totalPnl += position.getRealizedPnl() + position.getUnrealizedPnl(marketDataProvider.getMarketPrice(position.getInstrumentId()));
+        }
+        return totalPnl;
+    }
+}
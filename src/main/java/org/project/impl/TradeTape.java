@@ -0,0 +1,335 @@
+package org.project.impl;
+
+import org.project.interfaces.TimeSource;
+import org.project.interfaces.TradeListener;
+import org.project.utils.FixedPoint;
+import org.project.utils.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Trade Tape (append-only columnar store of fills in memory-mapped files, scanned block by block).
+// There is one writer at a time, queries run on their own threads against the rows committed when they start.
+public class TradeTape implements TradeListener, Closeable {
+
+    // Rows per block, every block has its own time range and instrument bitmap
+    public static final int BLOCK_ROWS = 1 << 16;
+
+    private static final String TIMESTAMP_COLUMN = "timestamps.col";
+    private static final String INSTRUMENT_COLUMN = "instruments.col";
+    private static final String PRICE_COLUMN = "prices.col";
+    private static final String QUANTITY_COLUMN = "quantities.col";
+    private static final String ROW_COUNT_FILE = "rows.meta";
+    private static final String INSTRUMENT_DICTIONARY = "instruments.dict";
+
+    private final TimeSource timeSource;
+    private final Path instrumentDictionary;
+    private final FileChannel timestampChannel;
+    private final FileChannel instrumentChannel;
+    private final FileChannel priceChannel;
+    private final FileChannel quantityChannel;
+    private final FileChannel rowCountChannel;
+    private final MappedByteBuffer rowCountBuffer;
+    private final LongBuffer rowCount;
+
+    // Instrument IDs are interned per tape, so the column files stay valid across restarts
+    private final Map<String, Integer> instrumentIds = new ConcurrentHashMap<>();
+    // Replaced when a block is added, before the first row of that block is committed
+    private volatile Block[] blocks = new Block[0];
+    // Committed rows, written after the row itself so readers never need the writer's lock
+    private volatile long size;
+
+    public TradeTape(Path directory, TimeSource timeSource) throws IOException {
+        this.timeSource = timeSource;
+        Files.createDirectories(directory);
+        this.instrumentDictionary = directory.resolve(INSTRUMENT_DICTIONARY);
+        this.timestampChannel = open(directory.resolve(TIMESTAMP_COLUMN));
+        this.instrumentChannel = open(directory.resolve(INSTRUMENT_COLUMN));
+        this.priceChannel = open(directory.resolve(PRICE_COLUMN));
+        this.quantityChannel = open(directory.resolve(QUANTITY_COLUMN));
+        this.rowCountChannel = open(directory.resolve(ROW_COUNT_FILE));
+        this.rowCountBuffer = map(rowCountChannel, 0, Long.BYTES);
+        this.rowCount = rowCountBuffer.asLongBuffer();
+
+        loadInstrumentDictionary();
+        reopenBlocks(rowCount.get(0));
+    }
+
+    @Override
+    public void onTrade(Order buyOrder, Order sellOrder, long quantityUnits, long priceUnits) {
+        try {
+            append(timeSource.currentTimeMillis(), buyOrder.getInstrument().getId(), priceUnits, quantityUnits);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append trade to tape", e);
+        }
+    }
+
+    public synchronized void append(long timestamp, String instrumentId, long priceUnits, long quantityUnits) throws IOException {
+        int instrumentKey = internInstrument(instrumentId);
+        int row = (int) (size % BLOCK_ROWS);
+        if (row == 0) {
+            addBlock(mapBlock(blocks.length));
+        }
+        Block block = blocks[blocks.length - 1];
+        block.timestamps.put(row, timestamp);
+        block.instruments.put(row, instrumentKey);
+        block.prices.put(row, priceUnits);
+        block.quantities.put(row, quantityUnits);
+        block.include(timestamp, instrumentKey);
+
+        // The row count is written last, so neither a reader nor a restart after a crash sees a half-written row
+        rowCount.put(0, size + 1);
+        size = size + 1;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getTradeCount(String instrumentId, long fromTime, long toTime) {
+        Integer instrumentKey = instrumentIds.get(instrumentId);
+        if (instrumentKey == null) {
+            return 0;
+        }
+        // The row count is read before the blocks, every committed row is in a block already published
+        long committedRows = size;
+        Block[] committedBlocks = blocks;
+        long count = 0;
+        for (int blockIndex = 0; blockIndex < committedBlocks.length; blockIndex++) {
+            Block block = committedBlocks[blockIndex];
+            int rows = rowsIn(committedRows, blockIndex);
+            if (rows > 0 && block.overlaps(instrumentKey, fromTime, toTime)) {
+                for (int row = 0; row < rows; row++) {
+                    if (block.matches(row, instrumentKey, fromTime, toTime)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public double getVolume(String instrumentId, long fromTime, long toTime) {
+        Integer instrumentKey = instrumentIds.get(instrumentId);
+        if (instrumentKey == null) {
+            return 0.0;
+        }
+        long committedRows = size;
+        Block[] committedBlocks = blocks;
+        // Whole shares and fractions are summed apart, a single long of units overflows past about 9.2e10 shares
+        long wholeShares = 0;
+        long fractionUnits = 0;
+        for (int blockIndex = 0; blockIndex < committedBlocks.length; blockIndex++) {
+            Block block = committedBlocks[blockIndex];
+            int rows = rowsIn(committedRows, blockIndex);
+            if (rows > 0 && block.overlaps(instrumentKey, fromTime, toTime)) {
+                for (int row = 0; row < rows; row++) {
+                    if (block.matches(row, instrumentKey, fromTime, toTime)) {
+                        long quantityUnits = block.quantities.get(row);
+                        wholeShares += quantityUnits / FixedPoint.SCALE;
+                        fractionUnits += quantityUnits % FixedPoint.SCALE;
+                        if (fractionUnits >= FixedPoint.SCALE) {
+                            wholeShares++;
+                            fractionUnits -= FixedPoint.SCALE;
+                        }
+                    }
+                }
+            }
+        }
+        return wholeShares + FixedPoint.toDouble(fractionUnits);
+    }
+
+    public double getVwap(String instrumentId, long fromTime, long toTime) {
+        Integer instrumentKey = instrumentIds.get(instrumentId);
+        if (instrumentKey == null) {
+            return Double.NaN;
+        }
+        long committedRows = size;
+        Block[] committedBlocks = blocks;
+        // Notional is accumulated in doubles, price units times quantity units would overflow a long
+        double notional = 0.0;
+        double volume = 0.0;
+        for (int blockIndex = 0; blockIndex < committedBlocks.length; blockIndex++) {
+            Block block = committedBlocks[blockIndex];
+            int rows = rowsIn(committedRows, blockIndex);
+            if (rows > 0 && block.overlaps(instrumentKey, fromTime, toTime)) {
+                for (int row = 0; row < rows; row++) {
+                    if (block.matches(row, instrumentKey, fromTime, toTime)) {
+                        double quantity = FixedPoint.toDouble(block.quantities.get(row));
+                        notional += FixedPoint.toDouble(block.prices.get(row)) * quantity;
+                        volume += quantity;
+                    }
+                }
+            }
+        }
+        return volume > 0 ? notional / volume : Double.NaN;
+    }
+
+    // Number of blocks a query has to read, all others are skipped on their time range and instrument bitmap
+    public int countBlocksScanned(String instrumentId, long fromTime, long toTime) {
+        Integer instrumentKey = instrumentIds.get(instrumentId);
+        long committedRows = size;
+        Block[] committedBlocks = blocks;
+        int scanned = 0;
+        for (int blockIndex = 0; blockIndex < committedBlocks.length; blockIndex++) {
+            if (instrumentKey != null && rowsIn(committedRows, blockIndex) > 0
+                    && committedBlocks[blockIndex].overlaps(instrumentKey, fromTime, toTime)) {
+                scanned++;
+            }
+        }
+        return scanned;
+    }
+
+    private static int rowsIn(long committedRows, int blockIndex) {
+        return (int) Math.max(0, Math.min(BLOCK_ROWS, committedRows - (long) blockIndex * BLOCK_ROWS));
+    }
+
+    private void addBlock(Block block) {
+        Block[] newBlocks = Arrays.copyOf(blocks, blocks.length + 1);
+        newBlocks[blocks.length] = block;
+        blocks = newBlocks;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Block block : blocks) {
+            block.force();
+        }
+        rowCountBuffer.force();
+        timestampChannel.close();
+        instrumentChannel.close();
+        priceChannel.close();
+        quantityChannel.close();
+        rowCountChannel.close();
+    }
+
+    private int internInstrument(String instrumentId) throws IOException {
+        Integer instrumentKey = instrumentIds.get(instrumentId);
+        if (instrumentKey == null) {
+            instrumentKey = instrumentIds.size();
+            Files.writeString(instrumentDictionary, instrumentId + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            instrumentIds.put(instrumentId, instrumentKey);
+        }
+        return instrumentKey;
+    }
+
+    private void loadInstrumentDictionary() throws IOException {
+        if (Files.exists(instrumentDictionary)) {
+            for (String instrumentId : Files.readAllLines(instrumentDictionary, StandardCharsets.UTF_8)) {
+                instrumentIds.put(instrumentId, instrumentIds.size());
+            }
+        }
+    }
+
+    private void reopenBlocks(long rows) throws IOException {
+        // Indexes are not persisted, they are rebuilt with one sequential pass over the existing rows
+        while (size < rows) {
+            Block block = mapBlock(blocks.length);
+            addBlock(block);
+            int blockRows = (int) Math.min(BLOCK_ROWS, rows - size);
+            for (int row = 0; row < blockRows; row++) {
+                block.include(block.timestamps.get(row), block.instruments.get(row));
+            }
+            size += blockRows;
+        }
+    }
+
+    private Block mapBlock(int blockIndex) throws IOException {
+        long row = (long) blockIndex * BLOCK_ROWS;
+        return new Block(
+                map(timestampChannel, row * Long.BYTES, (long) BLOCK_ROWS * Long.BYTES),
+                map(instrumentChannel, row * Integer.BYTES, (long) BLOCK_ROWS * Integer.BYTES),
+                map(priceChannel, row * Long.BYTES, (long) BLOCK_ROWS * Long.BYTES),
+                map(quantityChannel, row * Long.BYTES, (long) BLOCK_ROWS * Long.BYTES));
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // One block of every column with its time range and the set of instruments it holds
+    private static final class Block {
+        private final MappedByteBuffer[] mappedColumns;
+        private final LongBuffer timestamps;
+        private final IntBuffer instruments;
+        private final LongBuffer prices;
+        private final LongBuffer quantities;
+        // Written by the appending thread only and read by queries, so the index is volatile
+        private volatile long minTime = Long.MAX_VALUE;
+        private volatile long maxTime = Long.MIN_VALUE;
+        // One bit per instrument key, key order says nothing about where an instrument traded
+        private volatile long[] instrumentBits = new long[1];
+
+        Block(MappedByteBuffer timestamps, MappedByteBuffer instruments, MappedByteBuffer prices, MappedByteBuffer quantities) {
+            this.mappedColumns = new MappedByteBuffer[]{timestamps, instruments, prices, quantities};
+            this.timestamps = timestamps.asLongBuffer();
+            this.instruments = instruments.asIntBuffer();
+            this.prices = prices.asLongBuffer();
+            this.quantities = quantities.asLongBuffer();
+        }
+
+        void include(long timestamp, int instrumentKey) {
+            // Only widened, a reader racing an append sees a range that still covers its committed rows
+            if (timestamp < minTime) {
+                minTime = timestamp;
+            }
+            if (timestamp > maxTime) {
+                maxTime = timestamp;
+            }
+            int word = instrumentKey >>> 6;
+            long mask = 1L << instrumentKey;
+            long[] bits = instrumentBits;
+            if (word >= bits.length) {
+                // Grown by copy, a reader holding the old array still finds every bit set before it
+                long[] grownBits = Arrays.copyOf(bits, Math.max(bits.length * 2, word + 1));
+                grownBits[word] = mask;
+                instrumentBits = grownBits;
+            } else if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                // Written back to publish the new bit to readers
+                instrumentBits = bits;
+            }
+        }
+
+        boolean holds(int instrumentKey) {
+            long[] bits = instrumentBits;
+            int word = instrumentKey >>> 6;
+            return word < bits.length && (bits[word] & (1L << instrumentKey)) != 0;
+        }
+
+        boolean overlaps(int instrumentKey, long fromTime, long toTime) {
+            return maxTime >= fromTime && minTime <= toTime && holds(instrumentKey);
+        }
+
+        boolean matches(int row, int instrumentKey, long fromTime, long toTime) {
+            long timestamp = timestamps.get(row);
+            return instruments.get(row) == instrumentKey && timestamp >= fromTime && timestamp <= toTime;
+        }
+
+        void force() {
+            for (MappedByteBuffer column : mappedColumns) {
+                column.force();
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.project.impl;
+
+import org.project.interfaces.TimeSource;
+import org.project.interfaces.TradeListener;
+import org.project.utils.FixedPoint;
+import org.project.utils.Order;
+import org.project.utils.WashTradeAlert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Wash Trade Detector (flags offsetting trades between the same traders over a sliding window)
+public class WashTradeDetector implements TradeListener {
+    private static final Logger LOGGER = Logger.getLogger(WashTradeDetector.class.getName());
+
+    private final TimeSource timeSource;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final double offsetRatio;
+    private final int maxAlerts;
+    private final Map<WindowKey, TradeWindow> windows;
+    private final Deque<WashTradeAlert> alerts = new ArrayDeque<>();
+
+    public WashTradeDetector(TimeSource timeSource, long windowMillis, int bucketCount, double offsetRatio, int maxTrackedPairs, int maxAlerts) {
+        this.timeSource = timeSource;
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.bucketCount = bucketCount;
+        this.offsetRatio = offsetRatio;
+        this.maxAlerts = maxAlerts;
+        // Memory stays bounded, the least recently traded pairs are forgotten first
+        this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WindowKey, TradeWindow> eldest) {
+                return size() > maxTrackedPairs;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void onTrade(Order buyOrder, Order sellOrder, long quantityUnits, long priceUnits) {
+        long now = timeSource.currentTimeMillis();
+        int buyerKey = buyOrder.getTraderKey();
+        int sellerKey = sellOrder.getTraderKey();
+
+        // A trader on both sides is a wash trade on its own
+        if (buyerKey == sellerKey) {
+            raiseAlert(new WashTradeAlert(buyOrder.getTraderId(), sellOrder.getTraderId(), buyOrder.getInstrument().getId(),
+                    FixedPoint.toDouble(quantityUnits), FixedPoint.toDouble(quantityUnits), now));
+            return;
+        }
+
+        // Both directions between two traders share one window, keyed on the lower trader first
+        boolean lowerTraderBuys = buyerKey < sellerKey;
+        WindowKey key = new WindowKey(buyOrder.getInstrument().getKey(), Math.min(buyerKey, sellerKey), Math.max(buyerKey, sellerKey));
+        TradeWindow window = windows.computeIfAbsent(key, k -> new TradeWindow(bucketCount));
+        long epoch = now / bucketMillis;
+        window.add(epoch, lowerTraderBuys, quantityUnits);
+
+        // Volume bought back and forth within the window that mostly offsets itself is reported
+        long lowerBought = window.sum(epoch, true);
+        long higherBought = window.sum(epoch, false);
+        if (lowerBought > 0 && higherBought > 0 && (double) Math.min(lowerBought, higherBought) / Math.max(lowerBought, higherBought) >= offsetRatio) {
+            Order lowerOrder = lowerTraderBuys ? buyOrder : sellOrder;
+            Order higherOrder = lowerTraderBuys ? sellOrder : buyOrder;
+            raiseAlert(new WashTradeAlert(lowerOrder.getTraderId(), higherOrder.getTraderId(), buyOrder.getInstrument().getId(),
+                    FixedPoint.toDouble(lowerBought), FixedPoint.toDouble(higherBought), now));
+            window.clear();
+        }
+    }
+
+    public synchronized List<WashTradeAlert> getAlerts() {
+        return new ArrayList<>(alerts);
+    }
+
+    public synchronized int getTrackedPairCount() {
+        return windows.size();
+    }
+
+    private void raiseAlert(WashTradeAlert alert) {
+        if (alerts.size() == maxAlerts) {
+            alerts.removeFirst();
+        }
+        alerts.addLast(alert);
+        LOGGER.log(Level.WARNING, "Possible wash trade between " + alert.getTraderId() + " and " + alert.getCounterpartyTraderId()
+                + " in instrument " + alert.getInstrumentId());
+    }
+
+    private record WindowKey(int instrumentKey, int lowerTraderKey, int higherTraderKey) {
+    }
+
+    // Ring of time buckets, a bucket is reused once its epoch has left the window
+    private static final class TradeWindow {
+        private final long[] epochs;
+        // Bought quantities in fixed-point units, sums over the window are exact
+        private final long[] lowerBought;
+        private final long[] higherBought;
+
+        TradeWindow(int bucketCount) {
+            epochs = new long[bucketCount];
+            lowerBought = new long[bucketCount];
+            higherBought = new long[bucketCount];
+            clear();
+        }
+
+        void add(long epoch, boolean lowerTraderBuys, long quantityUnits) {
+            int bucket = (int) Math.floorMod(epoch, (long) epochs.length);
+            if (epochs[bucket] != epoch) {
+                epochs[bucket] = epoch;
+                lowerBought[bucket] = 0;
+                higherBought[bucket] = 0;
+            }
+            if (lowerTraderBuys) {
+                lowerBought[bucket] += quantityUnits;
+            } else {
+                higherBought[bucket] += quantityUnits;
+            }
+        }
+
+        long sum(long epoch, boolean lowerTrader) {
+            long[] volumes = lowerTrader ? lowerBought : higherBought;
+            long total = 0;
+            for (int bucket = 0; bucket < epochs.length; bucket++) {
+                if (epoch - epochs[bucket] < epochs.length) {
+                    total += volumes[bucket];
+                }
+            }
+            return total;
+        }
+
+        void clear() {
+            Arrays.fill(epochs, Long.MIN_VALUE / 2);
+            Arrays.fill(lowerBought, 0);
+            Arrays.fill(higherBought, 0);
+        }
+    }
+}
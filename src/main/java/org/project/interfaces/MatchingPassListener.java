@@ -0,0 +1,8 @@
+package org.project.interfaces;
+
+import java.util.Collection;
+
+public interface MatchingPassListener {
+    // Called on the matching thread once per pass, with every book the pass matched or traded in
+    void onMatchingPassCompleted(Collection<String> instrumentIds);
+}
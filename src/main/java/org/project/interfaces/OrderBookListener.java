@@ -0,0 +1,9 @@
+package org.project.interfaces;
+
+import org.project.utils.Order;
+
+public interface OrderBookListener {
+    // Called on the thread that owns the order book, whenever an order enters or leaves it
+    void onOrderAdded(Order order);
+    void onOrderRemoved(Order order);
+}
@@ -4,11 +4,19 @@ import org.project.enums.OrderType;
 import org.project.utils.Order;
 import org.project.exceptions.OrderException;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderManager {
     void addOrder(Order order) throws OrderException;
+    // Checks an order as addOrder would, without adding it
+    void validateOrder(Order order) throws OrderException;
     void cancelOrder(String orderId) throws OrderException;
+    void expireOrders();
+    // Existing resting orders are replayed to the listener as added
+    void addOrderBookListener(OrderBookListener listener);
     List<Order> getOrders(String instrumentId);
     List<Order> getOrders(String instrumentId, OrderType orderType);
+    // Resting orders on composite instruments only, without scanning the outright books
+    Collection<Order> getCompositeOrders();
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.project.interfaces;
+
+import org.project.utils.ExecutionReport;
+
+public interface OrderStatusListener {
+    void onExecutionReport(ExecutionReport report);
+}
@@ -0,0 +1,5 @@
+package org.project.interfaces;
+
+public interface TimeSource {
+    long currentTimeMillis();
+}
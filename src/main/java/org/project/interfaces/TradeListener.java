@@ -0,0 +1,9 @@
+package org.project.interfaces;
+
+import org.project.utils.Order;
+
+public interface TradeListener {
+    // Composite legs are passed as reused sub-orders, so listeners must not keep references to the orders.
+    // Quantity and price are fixed-point units, see FixedPoint.
+    void onTrade(Order buyOrder, Order sellOrder, long quantityUnits, long priceUnits);
+}
@@ -2,7 +2,10 @@ package org.project.interfaces;
 
 import org.project.utils.Order;
 
+import java.util.Collection;
+
 public interface TradingEngine {
     void matchOrders(String instrumentId);
+    void matchAll(Collection<String> instrumentIds);
     void executeTrade(Order buyOrder, Order sellOrder);
-}
\ No newline at end of file
+}
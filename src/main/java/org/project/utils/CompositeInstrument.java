@@ -22,12 +22,14 @@ public class CompositeInstrument extends Instrument {
     }
 
     public double getComponentWeight(String instrumentId) {
-        // Find the component matching the provided instrument ID
-        return getComponents().stream()
-                .filter(component -> component.getInstrument().getId().equals(instrumentId))
-                .findFirst()
-                .map(InstrumentComponent::getWeight)
-                .orElse(0.0); // Return 0 if the instrument is not found
+        // Find the component matching the provided instrument ID (indexed loop, this runs for every basket leg)
+        for (int i = 0; i < components.size(); i++) {
+            InstrumentComponent component = components.get(i);
+            if (component.getInstrument().getId().equals(instrumentId)) {
+                return component.getWeight();
+            }
+        }
+        return 0.0; // Return 0 if the instrument is not found
     }
 
     public List<InstrumentComponent> getComponents() {
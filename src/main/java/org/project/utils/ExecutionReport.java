@@ -0,0 +1,51 @@
+package org.project.utils;
+
+import org.project.enums.OrderStatus;
+
+// ExecutionReport (immutable snapshot of an order after a status update)
+public class ExecutionReport {
+
+    private final String orderId;
+    private final String traderId;
+    private final String instrumentId;
+    private final OrderStatus previousStatus;
+    private final OrderStatus status;
+    private final double remainingQuantity;
+
+    public ExecutionReport(String orderId, String traderId, String instrumentId, OrderStatus previousStatus, OrderStatus status, double remainingQuantity) {
+        this.orderId = orderId;
+        this.traderId = traderId;
+        this.instrumentId = instrumentId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.remainingQuantity = remainingQuantity;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getTraderId() {
+        return traderId;
+    }
+
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public double getRemainingQuantity() {
+        return remainingQuantity;
+    }
+
+    public boolean isStatusChange() {
+        return previousStatus != status;
+    }
+}
@@ -0,0 +1,42 @@
+package org.project.utils;
+
+import java.math.BigDecimal;
+
+// FixedPoint (exact decimal prices and quantities held as long units of 10^-8, no objects involved)
+public final class FixedPoint {
+
+    public static final int DECIMALS = 8;
+    public static final long SCALE = 100_000_000L;
+    // Smallest representable increment, the default tick and lot size
+    public static final long UNIT = 1L;
+    // Marks a missing price, e.g. on market orders
+    public static final long NONE = Long.MIN_VALUE;
+
+    private FixedPoint() {
+    }
+
+    public static long fromDouble(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    public static double toDouble(long units) {
+        return (double) units / SCALE;
+    }
+
+    public static long multiply(long units, double factor) {
+        // Exact for weights with a short binary expansion (0.5, 0.25, ...) below 2^53 units
+        return Math.round(units * factor);
+    }
+
+    public static long roundDownToMultiple(long units, long increment) {
+        return units - Math.floorMod(units, increment);
+    }
+
+    public static boolean isMultipleOf(long units, long increment) {
+        return Math.floorMod(units, increment) == 0;
+    }
+
+    public static String toString(long units) {
+        return units == NONE ? "NONE" : BigDecimal.valueOf(units, DECIMALS).stripTrailingZeros().toPlainString();
+    }
+}
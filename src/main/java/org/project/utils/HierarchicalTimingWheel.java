@@ -0,0 +1,171 @@
+package org.project.utils;
+
+import java.util.function.Consumer;
+
+// HierarchicalTimingWheel (O(1) schedule and cancel of deadlines, not thread-safe)
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS_PER_LEVEL = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+    // Six levels of 64 slots cover 2^36 ticks, about two years with one millisecond ticks
+    private static final int LEVELS = 6;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] slots;
+    private final int[] levelSizes = new int[LEVELS];
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickMillis, long startTimeMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new Timeout[LEVELS][SLOTS_PER_LEVEL];
+        this.currentTick = startTimeMillis / tickMillis;
+    }
+
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        // Deadlines that already passed fire on the next tick
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(this, payload, deadlineTick);
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    public void advance(long nowMillis, Consumer<T> expiryHandler) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+
+            // Nothing can fire before the next boundary of the lowest occupied level, so skip straight to it
+            int shift = SLOT_BITS * lowestOccupiedLevel();
+            long nextTick = ((currentTick >> shift) + 1) << shift;
+            if (nextTick > targetTick) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick = nextTick;
+            cascade();
+            expireCurrentSlot(expiryHandler);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade() {
+        // Higher levels first, so their timers can still fall through the lower levels on this tick
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            int slot = (int) ((currentTick >> shift) & SLOT_MASK);
+            Timeout<T> timeout;
+            while ((timeout = slots[level][slot]) != null) {
+                unlink(timeout);
+                insert(timeout);
+            }
+        }
+    }
+
+    private void expireCurrentSlot(Consumer<T> expiryHandler) {
+        int slot = (int) (currentTick & SLOT_MASK);
+        Timeout<T> timeout;
+        while ((timeout = slots[0][slot]) != null) {
+            remove(timeout);
+            expiryHandler.accept(timeout.payload);
+        }
+    }
+
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Deadlines beyond the top level are parked in its farthest slot and re-inserted when it cascades
+        long slotTick = Math.min(timeout.deadlineTick, currentTick + (1L << (SLOT_BITS * LEVELS)) - 1);
+        int slot = (int) ((slotTick >> (SLOT_BITS * level)) & SLOT_MASK);
+
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = slots[level][slot];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        slots[level][slot] = timeout;
+        levelSizes[level]++;
+    }
+
+    private void remove(Timeout<T> timeout) {
+        unlink(timeout);
+        size--;
+        timeout.detach();
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        levelSizes[timeout.level]--;
+    }
+
+    private int lowestOccupiedLevel() {
+        int level = 0;
+        while (levelSizes[level] == 0) {
+            level++;
+        }
+        return level;
+    }
+
+    // Timeout (handle of a scheduled deadline, linked into its wheel slot)
+    public static class Timeout<T> {
+        private HierarchicalTimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineTick;
+        private int level;
+        private int slot;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(HierarchicalTimingWheel<T> wheel, T payload, long deadlineTick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return wheel != null;
+        }
+
+        public boolean cancel() {
+            if (wheel == null) {
+                return false;
+            }
+            wheel.remove(this);
+            return true;
+        }
+
+        private void detach() {
+            wheel = null;
+            previous = null;
+            next = null;
+        }
+    }
+}
@@ -7,10 +7,21 @@ public class Instrument {
 
     private final String id;
     private final String symbol;
+    private final int key;
+    private final long tickUnits;
+    private final long lotUnits;
 
     public Instrument(String id, String symbol) {
+        this(id, symbol, FixedPoint.UNIT, FixedPoint.UNIT);
+    }
+
+    // Tick and lot sizes are given in fixed-point units, see FixedPoint
+    public Instrument(String id, String symbol, long tickUnits, long lotUnits) {
         this.id = id;
         this.symbol = symbol;
+        this.key = IntIdRegistry.INSTRUMENTS.idOf(id);
+        this.tickUnits = tickUnits;
+        this.lotUnits = lotUnits;
     }
 
     public String getId() {
@@ -20,4 +31,17 @@ public class Instrument {
     public String getSymbol() {
         return symbol;
     }
+
+    // Interned instrument ID for compact keys and primitive comparisons
+    public int getKey() {
+        return key;
+    }
+
+    public long getTickUnits() {
+        return tickUnits;
+    }
+
+    public long getLotUnits() {
+        return lotUnits;
+    }
 }
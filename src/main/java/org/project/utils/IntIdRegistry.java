@@ -0,0 +1,28 @@
+package org.project.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// IntIdRegistry (interns string IDs as dense ints for primitive comparisons on hot paths)
+public class IntIdRegistry {
+
+    public static final IntIdRegistry TRADERS = new IntIdRegistry();
+    public static final IntIdRegistry INSTRUMENTS = new IntIdRegistry();
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public int idOf(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return ids.computeIfAbsent(value, v -> nextId.getAndIncrement());
+    }
+
+    public int size() {
+        return nextId.get();
+    }
+}
@@ -1,19 +1,28 @@
 package org.project.utils;
 
+import org.project.enums.OrderPriority;
 import org.project.enums.OrderStatus;
 import org.project.enums.OrderType;
+import org.project.enums.TimeInForce;
 
 // Order (extended to handle composite instruments)
 public class Order {
 
     private final String id;
     private final String traderId;
+    private final int traderKey;
     private final OrderType type;
     private Instrument instrument;
-    private Double quantity;
+    // Quantity and price are kept as exact fixed-point units, the Double accessors convert at the edge
+    private long quantityUnits;
     private final Double price;
+    private final long priceUnits;
 
     private OrderStatus status;
+    private TimeInForce timeInForce = TimeInForce.GOOD_TILL_CANCEL;
+    private long expireTime;
+    private long sequence;
+    private OrderPriority priority = OrderPriority.NORMAL;
 
     public OrderStatus getStatus() {
         return status;
@@ -26,10 +35,12 @@ public class Order {
     public Order(String id, String traderId, OrderType type, Instrument instrument, Double quantity, Double price) {
         this.id = id;
         this.traderId = traderId;
+        this.traderKey = IntIdRegistry.TRADERS.idOf(traderId);
         this.type = type;
         this.instrument = instrument;
-        this.quantity = quantity;
+        this.quantityUnits = FixedPoint.fromDouble(quantity);
         this.price = price;
+        this.priceUnits = price != null ? FixedPoint.fromDouble(price) : FixedPoint.NONE;
         this.status = OrderStatus.PENDING;
     }
 
@@ -41,6 +52,11 @@ public class Order {
         return traderId;
     }
 
+    // Interned trader ID, compared instead of the string on the matching path
+    public int getTraderKey() {
+        return traderKey;
+    }
+
     public OrderType getType() {
         return type;
     }
@@ -50,17 +66,30 @@ public class Order {
     }
 
     public Double getQuantity() {
-        return quantity;
+        return FixedPoint.toDouble(quantityUnits);
     }
 
     public void setQuantity(Double quantity) {
-        this.quantity = quantity;
+        this.quantityUnits = FixedPoint.fromDouble(quantity);
+    }
+
+    public long getQuantityUnits() {
+        return quantityUnits;
+    }
+
+    public void setQuantityUnits(long quantityUnits) {
+        this.quantityUnits = quantityUnits;
     }
 
     public Double getPrice() {
         return price;
     }
 
+    // FixedPoint.NONE when the order has no limit price
+    public long getPriceUnits() {
+        return priceUnits;
+    }
+
     public boolean isCompositeOrder() {
         return instrument instanceof CompositeInstrument;
     }
@@ -72,4 +101,40 @@ public class Order {
     public void setInstrument(Instrument instrument) {
         this.instrument = instrument;
     }
+
+    // Arrival sequence in the order book, higher is newer
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    // Admission priority under load, quotes are usually LOW
+    public OrderPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(OrderPriority priority) {
+        this.priority = priority;
+    }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    public void setTimeInForce(TimeInForce timeInForce) {
+        this.timeInForce = timeInForce;
+    }
+
+    // Expiry deadline in epoch milliseconds, only used by good-till-date orders
+    public long getExpireTime() {
+        return expireTime;
+    }
+
+    public void setExpireTime(long expireTime) {
+        this.timeInForce = TimeInForce.GOOD_TILL_DATE;
+        this.expireTime = expireTime;
+    }
 }
@@ -0,0 +1,308 @@
+package org.project.utils;
+
+import org.project.enums.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// OrderBookView (immutable, versioned view of the order book, safe to read from any thread)
+public class OrderBookView {
+
+    // Slices are spread over a fixed number of buckets, a publish copies only the buckets it touches
+    private static final int BUCKET_COUNT = 64;
+    private static final OrderBookView EMPTY = new OrderBookView(0, emptyBuckets());
+
+    private final long version;
+    private final Map<String, InstrumentSlice>[] buckets;
+
+    private OrderBookView(long version, Map<String, InstrumentSlice>[] buckets) {
+        this.version = version;
+        this.buckets = buckets;
+    }
+
+    public static OrderBookView empty() {
+        return EMPTY;
+    }
+
+    public OrderBookView withOrders(Collection<OrderSnapshot> updated, Collection<OrderSnapshot> removed) {
+        // Copy on write, untouched buckets, slices and slice nodes are shared with the previous view
+        Map<String, InstrumentSlice>[] newBuckets = buckets.clone();
+        boolean[] copied = new boolean[BUCKET_COUNT];
+        for (OrderSnapshot snapshot : removed) {
+            Map<String, InstrumentSlice> bucket = copyBucket(newBuckets, copied, snapshot.getInstrumentId());
+            InstrumentSlice slice = bucket.get(snapshot.getInstrumentId());
+            if (slice != null) {
+                InstrumentSlice newSlice = slice.without(snapshot.getId());
+                if (newSlice.size == 0) {
+                    bucket.remove(snapshot.getInstrumentId());
+                } else {
+                    bucket.put(snapshot.getInstrumentId(), newSlice);
+                }
+            }
+        }
+        for (OrderSnapshot snapshot : updated) {
+            Map<String, InstrumentSlice> bucket = copyBucket(newBuckets, copied, snapshot.getInstrumentId());
+            bucket.put(snapshot.getInstrumentId(),
+                    bucket.getOrDefault(snapshot.getInstrumentId(), InstrumentSlice.EMPTY).with(snapshot));
+        }
+        return new OrderBookView(version + 1, newBuckets);
+    }
+
+    private Map<String, InstrumentSlice> copyBucket(Map<String, InstrumentSlice>[] newBuckets, boolean[] copied, String instrumentId) {
+        int bucket = bucketOf(instrumentId);
+        if (!copied[bucket]) {
+            newBuckets[bucket] = new HashMap<>(buckets[bucket]);
+            copied[bucket] = true;
+        }
+        return newBuckets[bucket];
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public OrderSnapshot getOrder(String instrumentId, String orderId) {
+        InstrumentSlice slice = buckets[bucketOf(instrumentId)].get(instrumentId);
+        return slice != null ? slice.find(orderId) : null;
+    }
+
+    public List<OrderSnapshot> getOrdersByInstrument(String instrumentId) {
+        InstrumentSlice slice = buckets[bucketOf(instrumentId)].get(instrumentId);
+        return slice != null ? slice.orders() : Collections.emptyList();
+    }
+
+    public List<OrderSnapshot> getOrdersByTrader(String traderId) {
+        List<OrderSnapshot> result = new ArrayList<>();
+        for (Map<String, InstrumentSlice> bucket : buckets) {
+            for (InstrumentSlice slice : bucket.values()) {
+                result.addAll(slice.byTrader().getOrDefault(traderId, Collections.emptyList()));
+            }
+        }
+        return result;
+    }
+
+    public List<OrderSnapshot> getOrdersByStatus(OrderStatus status) {
+        List<OrderSnapshot> result = new ArrayList<>();
+        for (Map<String, InstrumentSlice> bucket : buckets) {
+            for (InstrumentSlice slice : bucket.values()) {
+                result.addAll(slice.byStatus().getOrDefault(status, Collections.emptyList()));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, InstrumentSlice> bucket : buckets) {
+            for (InstrumentSlice slice : bucket.values()) {
+                size += slice.size;
+            }
+        }
+        return size;
+    }
+
+    private static int bucketOf(String instrumentId) {
+        return Math.floorMod(instrumentId.hashCode(), BUCKET_COUNT);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, InstrumentSlice>[] emptyBuckets() {
+        Map<String, InstrumentSlice>[] buckets = new Map[BUCKET_COUNT];
+        Arrays.fill(buckets, Collections.emptyMap());
+        return buckets;
+    }
+
+    // Snapshot with the position of its order in the slice, kept when the order is updated
+    private record Entry(long sequence, OrderSnapshot snapshot) {
+    }
+
+    // Snapshots of one instrument's orders in a persistent hash trie on the order ID.
+    // Adding, updating or removing an order copies one root-to-leaf path of at most 32-wide nodes,
+    // so a book change costs the same however many orders the instrument has.
+    private static final class InstrumentSlice {
+        private static final int NODE_BITS = 5;
+        private static final int NODE_WIDTH = 1 << NODE_BITS;
+        private static final int LEAF_CAPACITY = 32;
+        private static final Entry[] EMPTY_LEAF = new Entry[0];
+        private static final InstrumentSlice EMPTY = new InstrumentSlice(EMPTY_LEAF, 0, 0);
+
+        // Either an Entry[] leaf or an Object[] branch of NODE_WIDTH children
+        private final Object root;
+        private final int size;
+        private final long nextSequence;
+        // Lists and indexes are built on the first read of the slice, on the reader's thread
+        private volatile List<OrderSnapshot> orders;
+        private volatile Map<String, List<OrderSnapshot>> byTrader;
+        private volatile Map<OrderStatus, List<OrderSnapshot>> byStatus;
+
+        private InstrumentSlice(Object root, int size, long nextSequence) {
+            this.root = root;
+            this.size = size;
+            this.nextSequence = nextSequence;
+        }
+
+        InstrumentSlice with(OrderSnapshot snapshot) {
+            Entry existing = findEntry(root, hash(snapshot.getId()), 0, snapshot.getId());
+            Entry entry = new Entry(existing != null ? existing.sequence() : nextSequence, snapshot);
+            Object newRoot = put(root, hash(snapshot.getId()), 0, entry);
+            return existing != null
+                    ? new InstrumentSlice(newRoot, size, nextSequence)
+                    : new InstrumentSlice(newRoot, size + 1, nextSequence + 1);
+        }
+
+        InstrumentSlice without(String orderId) {
+            Object newRoot = remove(root, hash(orderId), 0, orderId);
+            return newRoot == root ? this : new InstrumentSlice(newRoot, size - 1, nextSequence);
+        }
+
+        OrderSnapshot find(String orderId) {
+            Entry entry = findEntry(root, hash(orderId), 0, orderId);
+            return entry != null ? entry.snapshot() : null;
+        }
+
+        List<OrderSnapshot> orders() {
+            List<OrderSnapshot> result = orders;
+            if (result == null) {
+                // Racing readers may both build the list, they build the same one
+                List<Entry> entries = new ArrayList<>(size);
+                collect(root, entries);
+                entries.sort(Comparator.comparingLong(Entry::sequence));
+                List<OrderSnapshot> snapshots = new ArrayList<>(entries.size());
+                for (Entry entry : entries) {
+                    snapshots.add(entry.snapshot());
+                }
+                result = Collections.unmodifiableList(snapshots);
+                orders = result;
+            }
+            return result;
+        }
+
+        Map<String, List<OrderSnapshot>> byTrader() {
+            Map<String, List<OrderSnapshot>> result = byTrader;
+            if (result == null) {
+                result = new HashMap<>();
+                for (OrderSnapshot snapshot : orders()) {
+                    result.computeIfAbsent(snapshot.getTraderId(), id -> new ArrayList<>()).add(snapshot);
+                }
+                result.replaceAll((traderId, snapshots) -> Collections.unmodifiableList(snapshots));
+                byTrader = result;
+            }
+            return result;
+        }
+
+        Map<OrderStatus, List<OrderSnapshot>> byStatus() {
+            Map<OrderStatus, List<OrderSnapshot>> result = byStatus;
+            if (result == null) {
+                result = new EnumMap<>(OrderStatus.class);
+                for (OrderSnapshot snapshot : orders()) {
+                    result.computeIfAbsent(snapshot.getStatus(), status -> new ArrayList<>()).add(snapshot);
+                }
+                result.replaceAll((status, snapshots) -> Collections.unmodifiableList(snapshots));
+                byStatus = result;
+            }
+            return result;
+        }
+
+        private static int hash(String orderId) {
+            int hash = orderId.hashCode();
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int childIndex(int hash, int shift) {
+            return (hash >>> shift) & (NODE_WIDTH - 1);
+        }
+
+        private static Entry findEntry(Object node, int hash, int shift, String orderId) {
+            while (!(node instanceof Entry[])) {
+                node = ((Object[]) node)[childIndex(hash, shift)];
+                shift += NODE_BITS;
+                if (node == null) {
+                    return null;
+                }
+            }
+            Entry[] leaf = (Entry[]) node;
+            int index = indexOf(leaf, orderId);
+            return index >= 0 ? leaf[index] : null;
+        }
+
+        private static Object put(Object node, int hash, int shift, Entry entry) {
+            if (node instanceof Entry[] leaf) {
+                int index = indexOf(leaf, entry.snapshot().getId());
+                if (index >= 0) {
+                    Entry[] newLeaf = leaf.clone();
+                    newLeaf[index] = entry;
+                    return newLeaf;
+                }
+                // A full leaf becomes a branch, once the hash bits run out leaves just grow
+                if (leaf.length < LEAF_CAPACITY || shift >= Integer.SIZE) {
+                    Entry[] newLeaf = Arrays.copyOf(leaf, leaf.length + 1);
+                    newLeaf[leaf.length] = entry;
+                    return newLeaf;
+                }
+                Object branch = new Object[NODE_WIDTH];
+                for (Entry leafEntry : leaf) {
+                    branch = put(branch, hash(leafEntry.snapshot().getId()), shift, leafEntry);
+                }
+                return put(branch, hash, shift, entry);
+            }
+            Object[] branch = ((Object[]) node).clone();
+            int index = childIndex(hash, shift);
+            branch[index] = put(branch[index] != null ? branch[index] : EMPTY_LEAF, hash, shift + NODE_BITS, entry);
+            return branch;
+        }
+
+        private static Object remove(Object node, int hash, int shift, String orderId) {
+            if (node instanceof Entry[] leaf) {
+                int index = indexOf(leaf, orderId);
+                if (index < 0) {
+                    return node;
+                }
+                Entry[] newLeaf = new Entry[leaf.length - 1];
+                System.arraycopy(leaf, 0, newLeaf, 0, index);
+                System.arraycopy(leaf, index + 1, newLeaf, index, newLeaf.length - index);
+                return newLeaf;
+            }
+            Object[] branch = (Object[]) node;
+            int index = childIndex(hash, shift);
+            Object child = branch[index];
+            if (child == null) {
+                return node;
+            }
+            Object newChild = remove(child, hash, shift + NODE_BITS, orderId);
+            if (newChild == child) {
+                return node;
+            }
+            Object[] newBranch = branch.clone();
+            newBranch[index] = newChild instanceof Entry[] newLeaf && newLeaf.length == 0 ? null : newChild;
+            return newBranch;
+        }
+
+        private static void collect(Object node, List<Entry> entries) {
+            if (node instanceof Entry[] leaf) {
+                entries.addAll(Arrays.asList(leaf));
+                return;
+            }
+            for (Object child : (Object[]) node) {
+                if (child != null) {
+                    collect(child, entries);
+                }
+            }
+        }
+
+        private static int indexOf(Entry[] leaf, String orderId) {
+            for (int i = 0; i < leaf.length; i++) {
+                if (leaf[i].snapshot().getId().equals(orderId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
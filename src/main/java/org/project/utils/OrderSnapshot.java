@@ -0,0 +1,59 @@
+package org.project.utils;
+
+import org.project.enums.OrderStatus;
+import org.project.enums.OrderType;
+
+// OrderSnapshot (immutable copy of an order as of one published book view)
+public class OrderSnapshot {
+
+    private final String id;
+    private final String traderId;
+    private final OrderType type;
+    private final String instrumentId;
+    private final long quantityUnits;
+    private final Double price;
+    private final OrderStatus status;
+
+    public OrderSnapshot(Order order) {
+        this.id = order.getId();
+        this.traderId = order.getTraderId();
+        this.type = order.getType();
+        this.instrumentId = order.getInstrument().getId();
+        this.quantityUnits = order.getQuantityUnits();
+        this.price = order.getPrice();
+        this.status = order.getStatus();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTraderId() {
+        return traderId;
+    }
+
+    public OrderType getType() {
+        return type;
+    }
+
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    public double getQuantity() {
+        return FixedPoint.toDouble(quantityUnits);
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    // Still what the order looks like, fills change only its quantity and status
+    public boolean isCurrent(Order order) {
+        return quantityUnits == order.getQuantityUnits() && status == order.getStatus();
+    }
+}
@@ -0,0 +1,102 @@
+package org.project.utils;
+
+// Position (immutable net position of a trader in one instrument, kept in fixed-point units)
+public class Position {
+
+    private final String traderId;
+    private final String instrumentId;
+    private final long netQuantityUnits;
+    private final long averagePriceUnits;
+    private final long realizedPnlUnits;
+
+    public Position(String traderId, String instrumentId, long netQuantityUnits, long averagePriceUnits, long realizedPnlUnits) {
+        this.traderId = traderId;
+        this.instrumentId = instrumentId;
+        this.netQuantityUnits = netQuantityUnits;
+        this.averagePriceUnits = averagePriceUnits;
+        this.realizedPnlUnits = realizedPnlUnits;
+    }
+
+    public static Position flat(String traderId, String instrumentId) {
+        return new Position(traderId, instrumentId, 0, 0, 0);
+    }
+
+    public Position withFill(long signedQuantityUnits, long priceUnits) {
+        // Fills on the same side (or from flat) extend the position at a weighted average price
+        if (netQuantityUnits == 0 || Long.signum(netQuantityUnits) == Long.signum(signedQuantityUnits)) {
+            long newQuantityUnits = netQuantityUnits + signedQuantityUnits;
+            long newAveragePriceUnits = weightedAverage(Math.abs(netQuantityUnits), averagePriceUnits, Math.abs(signedQuantityUnits), priceUnits);
+            return new Position(traderId, instrumentId, newQuantityUnits, newAveragePriceUnits, realizedPnlUnits);
+        }
+
+        // Opposite fills close the position first and realize the P&L on the closed quantity
+        long closedQuantityUnits = Math.min(Math.abs(signedQuantityUnits), Math.abs(netQuantityUnits));
+        long newRealizedPnlUnits = realizedPnlUnits
+                + Long.signum(netQuantityUnits) * amount(closedQuantityUnits, priceUnits - averagePriceUnits);
+        long newQuantityUnits = netQuantityUnits + signedQuantityUnits;
+        long newAveragePriceUnits;
+        if (newQuantityUnits == 0) {
+            newAveragePriceUnits = 0;
+        } else if (Long.signum(newQuantityUnits) != Long.signum(netQuantityUnits)) {
+            // The position flipped, the remainder was opened at the fill price
+            newAveragePriceUnits = priceUnits;
+        } else {
+            newAveragePriceUnits = averagePriceUnits;
+        }
+        return new Position(traderId, instrumentId, newQuantityUnits, newAveragePriceUnits, newRealizedPnlUnits);
+    }
+
+    private static long weightedAverage(long firstQuantityUnits, long firstPriceUnits, long secondQuantityUnits, long secondPriceUnits) {
+        // Products of units overflow a long, the average is rounded to the nearest price unit instead
+        if (firstQuantityUnits == 0 || firstPriceUnits == secondPriceUnits) {
+            return secondPriceUnits;
+        }
+        double total = (double) firstQuantityUnits * firstPriceUnits + (double) secondQuantityUnits * secondPriceUnits;
+        return Math.round(total / (firstQuantityUnits + secondQuantityUnits));
+    }
+
+    private static long amount(long quantityUnits, long priceUnits) {
+        // Quantity times price, rounded to one unit of currency per fill so the sum of fills stays exact
+        return Math.round((double) quantityUnits * priceUnits / FixedPoint.SCALE);
+    }
+
+    public double getUnrealizedPnl(double markPrice) {
+        return FixedPoint.toDouble(amount(netQuantityUnits, FixedPoint.fromDouble(markPrice) - averagePriceUnits));
+    }
+
+    public String getTraderId() {
+        return traderId;
+    }
+
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    public long getNetQuantityUnits() {
+        return netQuantityUnits;
+    }
+
+    public double getNetQuantity() {
+        return FixedPoint.toDouble(netQuantityUnits);
+    }
+
+    public long getAveragePriceUnits() {
+        return averagePriceUnits;
+    }
+
+    public double getAveragePrice() {
+        return FixedPoint.toDouble(averagePriceUnits);
+    }
+
+    public long getRealizedPnlUnits() {
+        return realizedPnlUnits;
+    }
+
+    public double getRealizedPnl() {
+        return FixedPoint.toDouble(realizedPnlUnits);
+    }
+
+    public boolean isFlat() {
+        return netQuantityUnits == 0;
+    }
+}
@@ -0,0 +1,66 @@
+package org.project.utils;
+
+import org.project.enums.OrderStatus;
+import org.project.enums.OrderType;
+
+// SubOrder (reusable leg of a composite order, backed by its parent order)
+public class SubOrder extends Order {
+
+    private Order parent;
+    private String id;
+
+    public SubOrder() {
+        super(null, null, null, null, 0.0, null);
+    }
+
+    public void reset(Order parent, Instrument instrument, long quantityUnits) {
+        this.parent = parent;
+        this.id = null;
+        setInstrument(instrument);
+        setQuantityUnits(quantityUnits);
+        setStatus(OrderStatus.PENDING);
+    }
+
+    public Order getParent() {
+        return parent;
+    }
+
+    @Override
+    public String getId() {
+        // The leg ID is only built when somebody actually asks for it
+        if (id == null && parent != null) {
+            id = parent.getId() + "_" + getInstrument().getId();
+        }
+        return id;
+    }
+
+    @Override
+    public String getTraderId() {
+        return parent.getTraderId();
+    }
+
+    @Override
+    public int getTraderKey() {
+        return parent.getTraderKey();
+    }
+
+    @Override
+    public long getSequence() {
+        return parent.getSequence();
+    }
+
+    @Override
+    public OrderType getType() {
+        return parent.getType();
+    }
+
+    @Override
+    public Double getPrice() {
+        return parent.getPrice();
+    }
+
+    @Override
+    public long getPriceUnits() {
+        return parent.getPriceUnits();
+    }
+}
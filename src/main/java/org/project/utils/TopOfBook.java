@@ -0,0 +1,62 @@
+package org.project.utils;
+
+// TopOfBook (best resting limit bid and ask of one book, captured when the book was last scanned)
+public class TopOfBook {
+
+    public static final TopOfBook EMPTY = new TopOfBook(null, null);
+
+    private final Order bestBid;
+    private final Order bestAsk;
+    // Prices and quantities are copied, the orders themselves keep changing while they are matched
+    private final long bidUnits;
+    private final long bidQuantityUnits;
+    private final long askUnits;
+    private final long askQuantityUnits;
+
+    public TopOfBook(Order bestBid, Order bestAsk) {
+        this.bestBid = bestBid;
+        this.bestAsk = bestAsk;
+        this.bidUnits = bestBid != null ? bestBid.getPriceUnits() : FixedPoint.NONE;
+        this.bidQuantityUnits = bestBid != null ? bestBid.getQuantityUnits() : 0;
+        this.askUnits = bestAsk != null ? bestAsk.getPriceUnits() : FixedPoint.NONE;
+        this.askQuantityUnits = bestAsk != null ? bestAsk.getQuantityUnits() : 0;
+    }
+
+    public Order getBestBid() {
+        return bestBid;
+    }
+
+    public Order getBestAsk() {
+        return bestAsk;
+    }
+
+    public boolean hasBid() {
+        return bestBid != null;
+    }
+
+    public boolean hasAsk() {
+        return bestAsk != null;
+    }
+
+    public long getBidUnits() {
+        return bidUnits;
+    }
+
+    public long getBidQuantityUnits() {
+        return bidQuantityUnits;
+    }
+
+    public long getAskUnits() {
+        return askUnits;
+    }
+
+    public long getAskQuantityUnits() {
+        return askQuantityUnits;
+    }
+
+    public boolean sameAs(TopOfBook other) {
+        return bestBid == other.bestBid && bestAsk == other.bestAsk
+                && bidUnits == other.bidUnits && bidQuantityUnits == other.bidQuantityUnits
+                && askUnits == other.askUnits && askQuantityUnits == other.askQuantityUnits;
+    }
+}
@@ -0,0 +1,61 @@
+package org.project.utils;
+
+// WarmupReport (outcome of a JIT warm-up run, latencies are mean nanoseconds per replayed order cycle)
+public class WarmupReport {
+
+    private final int preloadedClasses;
+    private final int batches;
+    private final int cyclesPerBatch;
+    private final boolean steady;
+    private final long timeToSteadyStateMillis;
+    private final long firstBatchNanos;
+    private final long steadyStateNanos;
+
+    public WarmupReport(int preloadedClasses, int batches, int cyclesPerBatch, boolean steady, long timeToSteadyStateMillis,
+                        long firstBatchNanos, long steadyStateNanos) {
+        this.preloadedClasses = preloadedClasses;
+        this.batches = batches;
+        this.cyclesPerBatch = cyclesPerBatch;
+        this.steady = steady;
+        this.timeToSteadyStateMillis = timeToSteadyStateMillis;
+        this.firstBatchNanos = firstBatchNanos;
+        this.steadyStateNanos = steadyStateNanos;
+    }
+
+    public int getPreloadedClasses() {
+        return preloadedClasses;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public int getCyclesPerBatch() {
+        return cyclesPerBatch;
+    }
+
+    // False when the batch budget ran out before latencies settled
+    public boolean isSteady() {
+        return steady;
+    }
+
+    public long getTimeToSteadyStateMillis() {
+        return timeToSteadyStateMillis;
+    }
+
+    public long getFirstBatchNanos() {
+        return firstBatchNanos;
+    }
+
+    public long getSteadyStateNanos() {
+        return steadyStateNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Warm-up " + (steady ? "reached steady state" : "stopped before steady state")
+                + " after " + batches + " batches of " + cyclesPerBatch + " cycles in " + timeToSteadyStateMillis + " ms"
+                + ", " + preloadedClasses + " classes preloaded"
+                + ", first batch " + firstBatchNanos + " ns/cycle, steady state " + steadyStateNanos + " ns/cycle";
+    }
+}
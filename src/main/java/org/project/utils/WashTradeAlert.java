@@ -0,0 +1,45 @@
+package org.project.utils;
+
+// WashTradeAlert (suspected round trip between two traders in one instrument)
+public class WashTradeAlert {
+
+    private final String traderId;
+    private final String counterpartyTraderId;
+    private final String instrumentId;
+    private final double boughtQuantity;
+    private final double soldQuantity;
+    private final long timestamp;
+
+    public WashTradeAlert(String traderId, String counterpartyTraderId, String instrumentId, double boughtQuantity, double soldQuantity, long timestamp) {
+        this.traderId = traderId;
+        this.counterpartyTraderId = counterpartyTraderId;
+        this.instrumentId = instrumentId;
+        this.boughtQuantity = boughtQuantity;
+        this.soldQuantity = soldQuantity;
+        this.timestamp = timestamp;
+    }
+
+    public String getTraderId() {
+        return traderId;
+    }
+
+    public String getCounterpartyTraderId() {
+        return counterpartyTraderId;
+    }
+
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    public double getBoughtQuantity() {
+        return boughtQuantity;
+    }
+
+    public double getSoldQuantity() {
+        return soldQuantity;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -2,18 +2,48 @@ package org.project;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.project.enums.AdmissionDecision;
+import org.project.enums.OrderPriority;
 import org.project.enums.OrderStatus;
 import org.project.enums.OrderType;
+import org.project.enums.SelfTradePrevention;
+import org.project.enums.TimeInForce;
 import org.project.exceptions.OrderException;
+import org.project.impl.AdmissionController;
+import org.project.impl.ImpliedPriceEngine;
 import org.project.impl.InMemoryOrderManager;
 import org.project.impl.MockMarketDataProvider;
+import org.project.impl.OrderQueryService;
+import org.project.impl.OrderStatusPublisher;
+import org.project.impl.PositionKeeper;
+import org.project.impl.TradeTape;
+import org.project.impl.WashTradeDetector;
 import org.project.utils.CompositeInstrument;
+import org.project.utils.ExecutionReport;
+import org.project.utils.FixedPoint;
 import org.project.utils.Instrument;
 import org.project.utils.InstrumentComponent;
 import org.project.utils.Order;
-
+import org.project.utils.OrderBookView;
+import org.project.utils.OrderSnapshot;
+import org.project.utils.Position;
+import org.project.utils.WarmupReport;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +52,9 @@ class MainTest {
     private InMemoryOrderManager orderManager;
     private SimpleTradingEngine tradingEngine;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         // Initialize mock market prices
@@ -422,4 +455,1096 @@ class MainTest {
         // Check if trade can be executed
         assertTrue(tradingEngine.canExecuteTrade(buyOrder, sellOrder));
     }
+
+    @Test
+    void testMatchAll_IndependentInstruments() throws OrderException {
+        // Create orders on several independent books
+        Instrument apple = new Instrument("1", "AAPL");
+        Instrument google = new Instrument("2", "GOOG");
+        Order appleBuy = new Order("buy1", "Trader1", OrderType.BUY, apple, 100.0, 150.0);
+        Order appleSell = new Order("sell1", "Trader2", OrderType.SELL, apple, 100.0, 150.0);
+        Order googleBuy = new Order("buy2", "Trader1", OrderType.BUY, google, 40.0, 2000.0);
+        Order googleSell = new Order("sell2", "Trader2", OrderType.SELL, google, 50.0, 2000.0);
+
+        orderManager.addOrder(appleBuy);
+        orderManager.addOrder(appleSell);
+        orderManager.addOrder(googleBuy);
+        orderManager.addOrder(googleSell);
+
+        // Match every book in one pass
+        tradingEngine.matchAll(List.of("1", "2"));
+
+        assertEquals(OrderStatus.FILLED, appleBuy.getStatus());
+        assertEquals(OrderStatus.FILLED, appleSell.getStatus());
+        assertEquals(OrderStatus.FILLED, googleBuy.getStatus());
+        assertEquals(OrderStatus.PARTIALLY_FILLED, googleSell.getStatus());
+    }
+
+    @Test
+    void testMatchAll_CompositeAndOutrightBooks() throws OrderException {
+        // Create a basket whose components also have outright orders
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        Instrument stock3 = new Instrument("5", "MSFT");
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 0.5),
+                new InstrumentComponent(stock2, 0.5)
+        ));
+
+        Order basketBuy = new Order("buy", "Trader1", OrderType.BUY, basket, 100.0, null);
+        Order basketSell = new Order("sell", "Trader2", OrderType.SELL, basket, 100.0, null);
+        Order outrightBuy = new Order("buy5", "Trader3", OrderType.BUY, stock3, 10.0, 300.0);
+        Order outrightSell = new Order("sell5", "Trader4", OrderType.SELL, stock3, 10.0, 300.0);
+
+        orderManager.addOrder(basketBuy);
+        orderManager.addOrder(basketSell);
+        orderManager.addOrder(outrightBuy);
+        orderManager.addOrder(outrightSell);
+
+        // The basket and its components are matched together, the unrelated book independently
+        tradingEngine.matchAll(List.of("1", "5", "3", "2"));
+
+        assertEquals(OrderStatus.FILLED, basketBuy.getStatus());
+        assertEquals(OrderStatus.FILLED, basketSell.getStatus());
+        assertEquals(OrderStatus.FILLED, outrightBuy.getStatus());
+        assertEquals(OrderStatus.FILLED, outrightSell.getStatus());
+    }
+
+    @Test
+    void testMatchAll_PartitionsWithoutScanningBooks() throws OrderException {
+        // Count full-book scans, matching itself only reads the books by side
+        AtomicLong bookScans = new AtomicLong();
+        InMemoryOrderManager countingOrderManager = new InMemoryOrderManager() {
+            @Override
+            public List<Order> getOrders(String instrumentId) {
+                bookScans.incrementAndGet();
+                return super.getOrders(instrumentId);
+            }
+        };
+        SimpleTradingEngine engine = new SimpleTradingEngine(countingOrderManager, marketDataProvider);
+        List<String> instrumentIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Instrument instrument = new Instrument("S" + i, "SYM" + i);
+            instrumentIds.add(instrument.getId());
+            countingOrderManager.addOrder(new Order("buy" + i, "Trader1", OrderType.BUY, instrument, 10.0, 100.0));
+            countingOrderManager.addOrder(new Order("sell" + i, "Trader2", OrderType.SELL, instrument, 10.0, 100.0));
+        }
+
+        engine.matchAll(instrumentIds);
+
+        assertEquals(0, bookScans.get());
+        assertEquals(OrderStatus.FILLED, countingOrderManager.getOrders("S99").get(0).getStatus());
+    }
+
+    @Test
+    void testCompositeExecution_ZeroSteadyStateAllocation() throws OrderException {
+        // Create a basket and a matching pair of composite orders
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(new Instrument("1", "AAPL"), 0.5),
+                new InstrumentComponent(new Instrument("2", "GOOG"), 0.5)
+        ));
+        Order buyOrder = new Order("buy", "Trader1", OrderType.BUY, basket, 100.0, null);
+        Order sellOrder = new Order("sell", "Trader2", OrderType.SELL, basket, 100.0, null);
+
+        // Per-trade logging is not part of the measured path
+        Logger engineLogger = Logger.getLogger(SimpleTradingEngine.class.getName());
+        Level previousLevel = engineLogger.getLevel();
+        engineLogger.setLevel(Level.WARNING);
+        try {
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+
+            // Keep executing until the JIT has settled, then every round must be allocation free
+            long allocatedBytes = -1;
+            for (int round = 0; round < 50 && allocatedBytes != 0; round++) {
+                long before = threadMXBean.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < 10_000; i++) {
+                    tradingEngine.handleCompositeOrderTrade(buyOrder, sellOrder);
+                }
+                allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            }
+
+            assertEquals(0, allocatedBytes);
+            assertEquals(OrderStatus.FILLED, buyOrder.getStatus());
+            assertEquals(OrderStatus.FILLED, sellOrder.getStatus());
+        } finally {
+            engineLogger.setLevel(previousLevel);
+        }
+    }
+
+    @Test
+    void testStatusSubscription_TraderAndOrderReports() throws OrderException {
+        // Deliver reports on the calling thread so the test stays deterministic
+        OrderStatusPublisher publisher = new OrderStatusPublisher(Runnable::run);
+        SimpleTradingEngine engine = new SimpleTradingEngine(orderManager, marketDataProvider, ForkJoinPool.commonPool(), publisher);
+        List<ExecutionReport> traderReports = new ArrayList<>();
+        List<ExecutionReport> orderReports = new ArrayList<>();
+        publisher.subscribeTrader("Trader1", traderReports::add);
+        publisher.subscribeOrder("sell", orderReports::add);
+
+        Instrument instrument = new Instrument("1", "AAPL");
+        Order buyOrder = new Order("buy", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        Order sellOrder = new Order("sell", "Trader2", OrderType.SELL, instrument, 60.0, 150.0);
+        orderManager.addOrder(buyOrder);
+        orderManager.addOrder(sellOrder);
+
+        engine.matchOrders(instrument.getId());
+
+        assertEquals(1, traderReports.size());
+        assertEquals("buy", traderReports.get(0).getOrderId());
+        assertEquals(OrderStatus.PENDING, traderReports.get(0).getPreviousStatus());
+        assertEquals(OrderStatus.PARTIALLY_FILLED, traderReports.get(0).getStatus());
+        assertEquals(40.0, traderReports.get(0).getRemainingQuantity());
+        assertEquals(1, orderReports.size());
+        assertEquals(OrderStatus.FILLED, orderReports.get(0).getStatus());
+    }
+
+    @Test
+    void testStatusSubscription_CompositeParentReportsAndCancel() throws OrderException {
+        OrderStatusPublisher publisher = new OrderStatusPublisher(Runnable::run);
+        SimpleTradingEngine engine = new SimpleTradingEngine(orderManager, marketDataProvider, ForkJoinPool.commonPool(), publisher);
+        List<ExecutionReport> reports = new ArrayList<>();
+        OrderStatusPublisher.Subscription subscription = publisher.subscribeTrader("Trader1", reports::add);
+        List<ExecutionReport> cancelledReports = new ArrayList<>();
+        publisher.subscribeTrader("Trader2", cancelledReports::add).cancel();
+
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(new Instrument("1", "AAPL"), 0.5),
+                new InstrumentComponent(new Instrument("2", "GOOG"), 0.5)
+        ));
+        Order buyOrder = new Order("buy", "Trader1", OrderType.BUY, basket, 100.0, null);
+        Order sellOrder = new Order("sell", "Trader2", OrderType.SELL, basket, 100.0, null);
+        orderManager.addOrder(buyOrder);
+        orderManager.addOrder(sellOrder);
+
+        engine.matchOrders(basket.getId());
+
+        // Only the parent order is reported, never its internal legs
+        assertEquals(1, reports.size());
+        assertEquals("buy", reports.get(0).getOrderId());
+        assertEquals(OrderStatus.FILLED, reports.get(0).getStatus());
+        assertTrue(reports.get(0).isStatusChange());
+        assertFalse(subscription.isCancelled());
+        assertTrue(cancelledReports.isEmpty());
+    }
+
+    @Test
+    void testStatusSubscription_CancelReleasesKeys() {
+        OrderStatusPublisher publisher = new OrderStatusPublisher(Runnable::run);
+        List<OrderStatusPublisher.Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            subscriptions.add(publisher.subscribeOrder("order" + i, report -> { }));
+        }
+        OrderStatusPublisher.Subscription traderSubscription = publisher.subscribeTrader("Trader1", report -> { });
+        OrderStatusPublisher.Subscription secondTraderSubscription = publisher.subscribeTrader("Trader1", report -> { });
+        assertEquals(1_001, publisher.getSubscribedKeyCount());
+
+        // No order key outlives its last subscription, a trader key stays while it still has one
+        subscriptions.forEach(OrderStatusPublisher.Subscription::cancel);
+        traderSubscription.cancel();
+        assertEquals(1, publisher.getSubscribedKeyCount());
+        secondTraderSubscription.cancel();
+        assertEquals(0, publisher.getSubscribedKeyCount());
+    }
+
+    @Test
+    void testStatusSubscription_SlowSubscriberQueueIsBounded() throws OrderException {
+        // Drains are collected but never run, as if the listener were stuck
+        List<Runnable> scheduledDrains = new ArrayList<>();
+        OrderStatusPublisher publisher = new OrderStatusPublisher(scheduledDrains::add, 10);
+        OrderStatusPublisher.Subscription stuck = publisher.subscribeTrader("Trader1", report -> { });
+        List<ExecutionReport> reports = new ArrayList<>();
+        OrderStatusPublisher.Subscription other = publisher.subscribeOrder("order24", reports::add);
+
+        Instrument instrument = new Instrument("1", "AAPL");
+        for (int i = 0; i < 25; i++) {
+            Order order = new Order("order" + i, "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+            publisher.publish(order, OrderStatus.PENDING);
+        }
+
+        assertEquals(10, stuck.getPendingCount());
+        assertEquals(15, stuck.getDroppedCount());
+        assertTrue(stuck.isOverflowed());
+        assertEquals(1, other.getPendingCount());
+        assertFalse(other.isOverflowed());
+        // One drain per subscriber is queued on the executor however many reports are pending
+        assertEquals(2, scheduledDrains.size());
+        scheduledDrains.get(1).run();
+        assertEquals(1, reports.size());
+        assertEquals(0, other.getPendingCount());
+    }
+
+    @Test
+    void testPositionKeeper_NetPositionAndPnl() throws OrderException {
+        PositionKeeper positionKeeper = new PositionKeeper(marketDataProvider);
+        tradingEngine.addTradeListener(positionKeeper);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        // Trader1 buys 100 at 140, then sells 40 at 160
+        orderManager.addOrder(new Order("buy1", "Trader1", OrderType.BUY, instrument, 100.0, 140.0));
+        orderManager.addOrder(new Order("sell1", "Trader2", OrderType.SELL, instrument, 100.0, 140.0));
+        tradingEngine.matchOrders(instrument.getId());
+        orderManager.addOrder(new Order("buy2", "Trader3", OrderType.BUY, instrument, 40.0, 160.0));
+        orderManager.addOrder(new Order("sell2", "Trader1", OrderType.SELL, instrument, 40.0, 160.0));
+        tradingEngine.matchOrders(instrument.getId());
+
+        Position position = positionKeeper.getPosition("Trader1", "1");
+        assertEquals(60.0, position.getNetQuantity());
+        assertEquals(140.0, position.getAveragePrice());
+        assertEquals(800.0, position.getRealizedPnl());
+        // Marked to the market price of 150
+        assertEquals(600.0, positionKeeper.getUnrealizedPnl("Trader1", "1"));
+        assertEquals(1400.0, positionKeeper.getTotalPnl("Trader1"));
+        assertEquals(-100.0, positionKeeper.getPosition("Trader2", "1").getNetQuantity());
+        assertEquals(0.0, positionKeeper.getPosition("Trader4", "1").getNetQuantity());
+    }
+
+    @Test
+    void testPositionKeeper_FractionalFillsCloseExactlyFlat() throws OrderException {
+        PositionKeeper positionKeeper = new PositionKeeper(marketDataProvider);
+        tradingEngine.addTradeListener(positionKeeper);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        // With double quantities 0.1 + 0.2 - 0.3 leaves 5.55e-17 and an average price of 9.999999999999998
+        orderManager.addOrder(new Order("buy1", "Trader1", OrderType.BUY, instrument, 0.1, 10.0));
+        orderManager.addOrder(new Order("sell1", "Trader2", OrderType.SELL, instrument, 0.1, 10.0));
+        tradingEngine.matchOrders(instrument.getId());
+        orderManager.addOrder(new Order("buy2", "Trader1", OrderType.BUY, instrument, 0.2, 10.0));
+        orderManager.addOrder(new Order("sell2", "Trader2", OrderType.SELL, instrument, 0.2, 10.0));
+        tradingEngine.matchOrders(instrument.getId());
+        assertEquals(10.0, positionKeeper.getPosition("Trader1", "1").getAveragePrice());
+
+        orderManager.addOrder(new Order("buy3", "Trader3", OrderType.BUY, instrument, 0.3, 10.0));
+        orderManager.addOrder(new Order("sell3", "Trader1", OrderType.SELL, instrument, 0.3, 10.0));
+        tradingEngine.matchOrders(instrument.getId());
+
+        Position position = positionKeeper.getPosition("Trader1", "1");
+        assertTrue(position.isFlat());
+        assertEquals(0, position.getNetQuantityUnits());
+        assertEquals(0.0, position.getAveragePrice());
+        assertEquals(0.0, position.getRealizedPnl());
+    }
+
+    @Test
+    void testPositionKeeper_CompositeFillsAttributedToComponents() throws OrderException {
+        PositionKeeper positionKeeper = new PositionKeeper(marketDataProvider);
+        tradingEngine.addTradeListener(positionKeeper);
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(new Instrument("1", "AAPL"), 0.5),
+                new InstrumentComponent(new Instrument("2", "GOOG"), 0.5)
+        ));
+
+        orderManager.addOrder(new Order("buy", "Trader1", OrderType.BUY, basket, 100.0, null));
+        orderManager.addOrder(new Order("sell", "Trader2", OrderType.SELL, basket, 100.0, null));
+        tradingEngine.matchOrders(basket.getId());
+
+        Map<String, Position> positions = positionKeeper.getPositions("Trader1");
+        assertEquals(2, positions.size());
+        assertEquals(50.0, positions.get("1").getNetQuantity());
+        assertEquals(150.0, positions.get("1").getAveragePrice());
+        assertEquals(50.0, positions.get("2").getNetQuantity());
+        assertEquals(2000.0, positions.get("2").getAveragePrice());
+        assertEquals(-50.0, positionKeeper.getPosition("Trader2", "2").getNetQuantity());
+        assertFalse(positions.containsKey("3"));
+    }
+
+    @Test
+    void testOrderExpiry_GoodTillDateAndDay() throws OrderException {
+        // Drive the order manager from a manual clock, starting at 10:00 UTC
+        AtomicLong now = new AtomicLong(Instant.parse("2024-03-01T10:00:00Z").toEpochMilli());
+        InMemoryOrderManager expiringOrderManager = new InMemoryOrderManager(now::get);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        Order goodTillDate = new Order("gtd", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        goodTillDate.setExpireTime(now.get() + 5_000);
+        Order dayOrder = new Order("day", "Trader2", OrderType.SELL, instrument, 100.0, 160.0);
+        dayOrder.setTimeInForce(TimeInForce.DAY);
+        Order goodTillCancel = new Order("gtc", "Trader3", OrderType.SELL, instrument, 100.0, 170.0);
+        expiringOrderManager.addOrder(goodTillDate);
+        expiringOrderManager.addOrder(dayOrder);
+        expiringOrderManager.addOrder(goodTillCancel);
+        assertEquals(2, expiringOrderManager.getPendingExpiryCount());
+
+        // Just before the deadline nothing expires
+        now.addAndGet(4_999);
+        expiringOrderManager.expireOrders();
+        assertEquals(3, expiringOrderManager.getOrders("1").size());
+
+        now.addAndGet(1);
+        expiringOrderManager.expireOrders();
+        assertEquals(OrderStatus.EXPIRED, goodTillDate.getStatus());
+        assertFalse(expiringOrderManager.getOrders("1").contains(goodTillDate));
+
+        // The day order lasts until midnight UTC
+        now.set(Instant.parse("2024-03-01T23:59:59.999Z").toEpochMilli());
+        expiringOrderManager.expireOrders();
+        assertEquals(OrderStatus.PENDING, dayOrder.getStatus());
+        now.set(Instant.parse("2024-03-02T00:00:00Z").toEpochMilli());
+        expiringOrderManager.expireOrders();
+        assertEquals(OrderStatus.EXPIRED, dayOrder.getStatus());
+        assertEquals(List.of(goodTillCancel), expiringOrderManager.getOrders("1"));
+        assertEquals(0, expiringOrderManager.getPendingExpiryCount());
+    }
+
+    @Test
+    void testOrderExpiry_CancelRemovesDeadline() throws OrderException {
+        AtomicLong now = new AtomicLong(1_000_000);
+        InMemoryOrderManager expiringOrderManager = new InMemoryOrderManager(now::get);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        Order order = new Order("gtd", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        order.setExpireTime(now.get() + 60_000);
+        expiringOrderManager.addOrder(order);
+        expiringOrderManager.cancelOrder("gtd");
+        assertEquals(0, expiringOrderManager.getPendingExpiryCount());
+
+        // A deadline in the past is rejected
+        Order expired = new Order("late", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        expired.setExpireTime(now.get());
+        assertThrows(OrderException.class, () -> expiringOrderManager.addOrder(expired));
+
+        now.addAndGet(120_000);
+        expiringOrderManager.expireOrders();
+        assertEquals(OrderStatus.PENDING, order.getStatus());
+    }
+
+    @Test
+    void testOrderExpiry_MatchingPassExpiresBeforeTrading() throws OrderException {
+        AtomicLong now = new AtomicLong(1_000_000);
+        OrderStatusPublisher publisher = new OrderStatusPublisher(Runnable::run);
+        InMemoryOrderManager expiringOrderManager = new InMemoryOrderManager(now::get, publisher);
+        SimpleTradingEngine engine = new SimpleTradingEngine(expiringOrderManager, marketDataProvider, ForkJoinPool.commonPool(), publisher);
+        List<ExecutionReport> reports = new ArrayList<>();
+        publisher.subscribeOrder("gtd", reports::add);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        Order goodTillDate = new Order("gtd", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        goodTillDate.setExpireTime(now.get() + 1_000);
+        Order sellOrder = new Order("sell", "Trader2", OrderType.SELL, instrument, 100.0, 150.0);
+        expiringOrderManager.addOrder(goodTillDate);
+        expiringOrderManager.addOrder(sellOrder);
+
+        // No add or cancel after the deadline, the matching pass itself expires the order
+        now.addAndGet(5_000);
+        engine.matchOrders(instrument.getId());
+
+        assertEquals(OrderStatus.EXPIRED, goodTillDate.getStatus());
+        assertEquals(OrderStatus.PENDING, sellOrder.getStatus());
+        assertEquals(1, reports.size());
+        assertEquals(OrderStatus.PENDING, reports.get(0).getPreviousStatus());
+        assertEquals(OrderStatus.EXPIRED, reports.get(0).getStatus());
+    }
+
+    @Test
+    void testSelfTradePrevention_CancelNewestByDefault() throws OrderException {
+        Instrument instrument = new Instrument("1", "AAPL");
+        Order buyOrder = new Order("buy", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        Order sellOrder = new Order("sell", "Trader1", OrderType.SELL, instrument, 100.0, 150.0);
+        Order otherSellOrder = new Order("sell2", "Trader2", OrderType.SELL, instrument, 100.0, 150.0);
+        orderManager.addOrder(buyOrder);
+        orderManager.addOrder(sellOrder);
+        orderManager.addOrder(otherSellOrder);
+
+        tradingEngine.matchOrders(instrument.getId());
+
+        // The newer sell order of the same trader is cancelled, the buy trades with the other trader
+        assertEquals(OrderStatus.CANCELLED, sellOrder.getStatus());
+        assertFalse(orderManager.getOrders("1").contains(sellOrder));
+        assertEquals(OrderStatus.FILLED, buyOrder.getStatus());
+        assertEquals(OrderStatus.FILLED, otherSellOrder.getStatus());
+    }
+
+    @Test
+    void testSelfTradePrevention_Modes() throws OrderException {
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        tradingEngine.setSelfTradePrevention(SelfTradePrevention.CANCEL_OLDEST);
+        Order oldBuy = new Order("buy1", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        Order newSell = new Order("sell1", "Trader1", OrderType.SELL, instrument, 100.0, 150.0);
+        orderManager.addOrder(oldBuy);
+        orderManager.addOrder(newSell);
+        tradingEngine.matchOrders(instrument.getId());
+        assertEquals(OrderStatus.CANCELLED, oldBuy.getStatus());
+        assertEquals(OrderStatus.PENDING, newSell.getStatus());
+        orderManager.cancelOrder("sell1");
+
+        tradingEngine.setSelfTradePrevention(SelfTradePrevention.DECREMENT);
+        Order buy = new Order("buy2", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        Order sell = new Order("sell2", "Trader1", OrderType.SELL, instrument, 30.0, 150.0);
+        orderManager.addOrder(buy);
+        orderManager.addOrder(sell);
+        tradingEngine.matchOrders(instrument.getId());
+        assertEquals(OrderStatus.PENDING, buy.getStatus());
+        assertEquals(70.0, buy.getQuantity());
+        assertEquals(OrderStatus.CANCELLED, sell.getStatus());
+
+        tradingEngine.setSelfTradePrevention(SelfTradePrevention.NONE);
+        Order washSell = new Order("sell3", "Trader1", OrderType.SELL, instrument, 70.0, 150.0);
+        orderManager.addOrder(washSell);
+        tradingEngine.matchOrders(instrument.getId());
+        assertEquals(OrderStatus.FILLED, buy.getStatus());
+        assertEquals(OrderStatus.FILLED, washSell.getStatus());
+    }
+
+    @Test
+    void testWashTradeDetector_RoundTripWithinWindow() throws OrderException {
+        AtomicLong now = new AtomicLong(1_000_000);
+        WashTradeDetector detector = new WashTradeDetector(now::get, 60_000, 60, 0.9, 1_000, 100);
+        tradingEngine.addTradeListener(detector);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        // Trader1 buys from Trader2, and Trader2 buys the same quantity back ten seconds later
+        orderManager.addOrder(new Order("buy1", "Trader1", OrderType.BUY, instrument, 100.0, 150.0));
+        orderManager.addOrder(new Order("sell1", "Trader2", OrderType.SELL, instrument, 100.0, 150.0));
+        tradingEngine.matchOrders(instrument.getId());
+        assertTrue(detector.getAlerts().isEmpty());
+
+        now.addAndGet(10_000);
+        orderManager.addOrder(new Order("buy2", "Trader2", OrderType.BUY, instrument, 100.0, 150.0));
+        orderManager.addOrder(new Order("sell2", "Trader1", OrderType.SELL, instrument, 100.0, 150.0));
+        tradingEngine.matchOrders(instrument.getId());
+        assertEquals(1, detector.getAlerts().size());
+        assertEquals("1", detector.getAlerts().get(0).getInstrumentId());
+
+        // The same round trip spread over more than the window is not flagged
+        now.addAndGet(10_000);
+        orderManager.addOrder(new Order("buy3", "Trader1", OrderType.BUY, instrument, 100.0, 150.0));
+        orderManager.addOrder(new Order("sell3", "Trader2", OrderType.SELL, instrument, 100.0, 150.0));
+        tradingEngine.matchOrders(instrument.getId());
+        now.addAndGet(120_000);
+        orderManager.addOrder(new Order("buy4", "Trader2", OrderType.BUY, instrument, 100.0, 150.0));
+        orderManager.addOrder(new Order("sell4", "Trader1", OrderType.SELL, instrument, 100.0, 150.0));
+        tradingEngine.matchOrders(instrument.getId());
+        assertEquals(1, detector.getAlerts().size());
+        assertEquals(1, detector.getTrackedPairCount());
+    }
+
+    @Test
+    void testOrderQueryService_VersionedViews() throws OrderException {
+        OrderQueryService queryService = new OrderQueryService(orderManager);
+        tradingEngine.setQueryService(queryService);
+        Instrument instrument = new Instrument("1", "AAPL");
+        Order buyOrder = new Order("buy", "Trader1", OrderType.BUY, instrument, 100.0, 150.0);
+        Order sellOrder = new Order("sell", "Trader2", OrderType.SELL, instrument, 60.0, 150.0);
+        orderManager.addOrder(buyOrder);
+        orderManager.addOrder(sellOrder);
+
+        // Every add already published the book, an explicit publish bumps the version once more
+        OrderBookView before = queryService.publish(List.of("1"));
+        assertEquals(3, before.getVersion());
+        assertEquals(2, queryService.getOrdersByInstrument("1").size());
+        assertEquals(2, queryService.getOrdersByStatus(OrderStatus.PENDING).size());
+
+        // Matching publishes a new view, the old one keeps its consistent state
+        tradingEngine.matchOrders(instrument.getId());
+        OrderBookView after = queryService.getView();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(OrderStatus.PENDING, before.getOrdersByTrader("Trader1").get(0).getStatus());
+        assertEquals(100.0, before.getOrdersByTrader("Trader1").get(0).getQuantity());
+        assertEquals(OrderStatus.PARTIALLY_FILLED, after.getOrdersByTrader("Trader1").get(0).getStatus());
+        assertEquals(40.0, after.getOrdersByTrader("Trader1").get(0).getQuantity());
+        assertEquals(1, after.getOrdersByStatus(OrderStatus.FILLED).size());
+        assertTrue(after.getOrdersByTrader("Trader3").isEmpty());
+    }
+
+    @Test
+    void testOrderQueryService_CompositeSlicesRefreshedWithComponents() throws OrderException {
+        OrderQueryService queryService = new OrderQueryService(orderManager);
+        tradingEngine.setQueryService(queryService);
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(new Instrument("1", "AAPL"), 0.5),
+                new InstrumentComponent(new Instrument("2", "GOOG"), 0.5)
+        ));
+        orderManager.addOrder(new Order("buy", "Trader1", OrderType.BUY, basket, 100.0, null));
+        orderManager.addOrder(new Order("sell", "Trader2", OrderType.SELL, basket, 100.0, null));
+
+        tradingEngine.matchAll(List.of("1", "2"));
+
+        assertEquals(2, queryService.getOrdersByInstrument("3").size());
+        assertTrue(queryService.getOrdersByInstrument("1").isEmpty());
+        assertEquals(2, queryService.getOrdersByStatus(OrderStatus.FILLED).size());
+        assertEquals(2, queryService.getView().size());
+    }
+
+    @Test
+    void testOrderQueryService_CancelAndExpiryLeaveViewImmediately() throws OrderException {
+        AtomicLong now = new AtomicLong(1_000_000);
+        InMemoryOrderManager expiringOrderManager = new InMemoryOrderManager(now::get);
+        Instrument instrument = new Instrument("1", "AAPL");
+        Order resting = new Order("resting", "Trader1", OrderType.BUY, instrument, 10.0, 140.0);
+        expiringOrderManager.addOrder(resting);
+
+        // Orders already resting are picked up when the service is created
+        OrderQueryService queryService = new OrderQueryService(expiringOrderManager);
+        assertEquals(1, queryService.getOrdersByInstrument("1").size());
+
+        Order goodTillDate = new Order("gtd", "Trader2", OrderType.SELL, instrument, 10.0, 160.0);
+        goodTillDate.setExpireTime(now.get() + 1_000);
+        expiringOrderManager.addOrder(goodTillDate);
+        assertEquals(2, queryService.getOrdersByStatus(OrderStatus.PENDING).size());
+
+        // No matching pass in between, the view follows cancels and expiry on its own
+        expiringOrderManager.cancelOrder("resting");
+        assertEquals("gtd", queryService.getOrdersByInstrument("1").get(0).getId());
+        now.addAndGet(1_000);
+        expiringOrderManager.expireOrders();
+        assertTrue(queryService.getOrdersByInstrument("1").isEmpty());
+        assertEquals(0, queryService.getView().size());
+    }
+
+    @Test
+    void testOrderQueryService_LargeBookUpdatedPerOrder() throws OrderException {
+        OrderQueryService queryService = new OrderQueryService(orderManager);
+        Instrument instrument = new Instrument("1", "AAPL");
+        for (int i = 0; i < 5_000; i++) {
+            orderManager.addOrder(new Order("order" + i, "Trader" + (i % 10), OrderType.BUY, instrument, 10.0, 100.0 + i % 7));
+        }
+        OrderBookView full = queryService.getView();
+        for (int i = 0; i < 5_000; i += 2) {
+            orderManager.cancelOrder("order" + i);
+        }
+
+        // Views keep insertion order, and a cancel leaves the views published before it untouched
+        List<OrderSnapshot> remaining = queryService.getOrdersByInstrument("1");
+        assertEquals(2_500, remaining.size());
+        assertEquals("order1", remaining.get(0).getId());
+        assertEquals("order4999", remaining.get(2_499).getId());
+        assertEquals(500, queryService.getOrdersByTrader("Trader1").size());
+        assertTrue(queryService.getOrdersByTrader("Trader0").isEmpty());
+        assertEquals(5_000, full.getOrdersByInstrument("1").size());
+        assertEquals("order0", full.getOrdersByInstrument("1").get(0).getId());
+        assertEquals(7_500, queryService.getView().getVersion());
+    }
+
+    @Test
+    void testFixedPoint_RepeatedPartialFillsLeaveNoRemainder() throws OrderException {
+        // With double arithmetic 0.3 - 0.1 - 0.1 leaves 0.09999999999999998 and the last sell never fills
+        Instrument instrument = new Instrument("1", "AAPL");
+        Order buyOrder = new Order("buy", "Trader1", OrderType.BUY, instrument, 0.3, 150.0);
+        List<Order> sellOrders = new ArrayList<>();
+        orderManager.addOrder(buyOrder);
+        for (int i = 0; i < 3; i++) {
+            Order sellOrder = new Order("sell" + i, "Trader2", OrderType.SELL, instrument, 0.1, 150.0);
+            sellOrders.add(sellOrder);
+            orderManager.addOrder(sellOrder);
+            tradingEngine.matchOrders(instrument.getId());
+        }
+
+        assertEquals(OrderStatus.FILLED, buyOrder.getStatus());
+        assertTrue(sellOrders.stream().allMatch(Order::isFilled));
+        assertEquals(0L, buyOrder.getQuantityUnits());
+        assertEquals(0.0, buyOrder.getQuantity());
+    }
+
+    @Test
+    void testFixedPoint_TickAndLotSizes() throws OrderException {
+        // Tick of 0.01 and lot of 10 shares
+        Instrument instrument = new Instrument("1", "AAPL", FixedPoint.fromDouble(0.01), FixedPoint.fromDouble(10));
+
+        assertDoesNotThrow(() -> orderManager.addOrder(new Order("valid", "Trader1", OrderType.BUY, instrument, 30.0, 150.25)));
+        assertThrows(OrderException.class, () -> orderManager.addOrder(new Order("badLot", "Trader1", OrderType.BUY, instrument, 25.0, 150.25)));
+        assertThrows(OrderException.class, () -> orderManager.addOrder(new Order("badTick", "Trader1", OrderType.BUY, instrument, 30.0, 150.255)));
+        assertDoesNotThrow(() -> orderManager.addOrder(new Order("market", "Trader1", OrderType.BUY, instrument, 30.0, null)));
+        assertEquals("150.25", FixedPoint.toString(FixedPoint.fromDouble(150.25)));
+    }
+
+    @Test
+    void testFixedPoint_CompositeLegsRoundedToComponentLots() throws OrderException {
+        // GOOG trades in lots of 10, so a 25 share leg is rounded down to 20
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG", FixedPoint.UNIT, FixedPoint.fromDouble(10));
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 0.5),
+                new InstrumentComponent(stock2, 0.25)
+        ));
+        PositionKeeper positionKeeper = new PositionKeeper(marketDataProvider);
+        tradingEngine.addTradeListener(positionKeeper);
+
+        orderManager.addOrder(new Order("buy", "Trader1", OrderType.BUY, basket, 100.0, null));
+        orderManager.addOrder(new Order("sell", "Trader2", OrderType.SELL, basket, 100.0, null));
+        tradingEngine.matchOrders(basket.getId());
+
+        assertEquals(50.0, positionKeeper.getPosition("Trader1", "1").getNetQuantity());
+        assertEquals(20.0, positionKeeper.getPosition("Trader1", "2").getNetQuantity());
+    }
+
+    @Test
+    void testTradeTape_VwapVolumeAndTimeRange() throws Exception {
+        Path directory = tempDir.resolve("trade-tape");
+        AtomicLong now = new AtomicLong(1_000);
+        try (TradeTape tradeTape = new TradeTape(directory, now::get)) {
+            tradingEngine.addTradeListener(tradeTape);
+            Instrument instrument = new Instrument("1", "AAPL");
+
+            // 100 at 150, then 50 at 156 a second later
+            orderManager.addOrder(new Order("buy1", "Trader1", OrderType.BUY, instrument, 100.0, 150.0));
+            orderManager.addOrder(new Order("sell1", "Trader2", OrderType.SELL, instrument, 100.0, 150.0));
+            tradingEngine.matchOrders(instrument.getId());
+            now.set(2_000);
+            orderManager.addOrder(new Order("buy2", "Trader1", OrderType.BUY, instrument, 50.0, 156.0));
+            orderManager.addOrder(new Order("sell2", "Trader2", OrderType.SELL, instrument, 50.0, 156.0));
+            tradingEngine.matchOrders(instrument.getId());
+
+            assertEquals(2, tradeTape.size());
+            assertEquals(150.0, tradeTape.getVolume("1", 0, Long.MAX_VALUE));
+            assertEquals(152.0, tradeTape.getVwap("1", 0, Long.MAX_VALUE), 1e-9);
+            assertEquals(50.0, tradeTape.getVolume("1", 1_500, 2_500));
+            assertEquals(0, tradeTape.getTradeCount("2", 0, Long.MAX_VALUE));
+        }
+
+        // The columns survive a reopen
+        try (TradeTape reopened = new TradeTape(directory, () -> 0)) {
+            assertEquals(2, reopened.size());
+            assertEquals(1, reopened.getTradeCount("1", 0, 1_000));
+        }
+    }
+
+    @Test
+    void testTradeTape_VolumeBeyondLongUnits() throws Exception {
+        try (TradeTape tradeTape = new TradeTape(tempDir.resolve("trade-tape"), () -> 0)) {
+            // Each fill is 5e18 units, two of them no longer fit in a long of units
+            tradeTape.append(0, "AAPL", FixedPoint.fromDouble(10), FixedPoint.fromDouble(5e10));
+            tradeTape.append(1, "AAPL", FixedPoint.fromDouble(10), FixedPoint.fromDouble(5e10));
+            tradeTape.append(2, "AAPL", FixedPoint.fromDouble(10), FixedPoint.fromDouble(0.75));
+            tradeTape.append(3, "AAPL", FixedPoint.fromDouble(10), FixedPoint.fromDouble(0.5));
+
+            assertEquals(1e11 + 1.25, tradeTape.getVolume("AAPL", 0, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void testTradeTape_BlockIndexesSkipUnrelatedBlocks() throws Exception {
+        Path directory = tempDir.resolve("trade-tape");
+        try (TradeTape tradeTape = new TradeTape(directory, () -> 0)) {
+            // Three full blocks in time order, the middle one also holds a second instrument
+            for (int row = 0; row < 3 * TradeTape.BLOCK_ROWS; row++) {
+                String instrumentId = row / TradeTape.BLOCK_ROWS == 1 && row % 2 == 0 ? "GOOG" : "AAPL";
+                tradeTape.append(row, instrumentId, FixedPoint.fromDouble(10), FixedPoint.fromDouble(1));
+            }
+
+            assertEquals(1, tradeTape.countBlocksScanned("AAPL", 0, 100));
+            assertEquals(1, tradeTape.countBlocksScanned("GOOG", 0, Long.MAX_VALUE));
+            assertEquals(TradeTape.BLOCK_ROWS / 2.0, tradeTape.getVolume("GOOG", 0, Long.MAX_VALUE));
+            assertEquals(2.5 * TradeTape.BLOCK_ROWS, tradeTape.getVolume("AAPL", 0, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void testTradeTape_InterleavedInstrumentsSkipBlocks() throws Exception {
+        try (TradeTape tradeTape = new TradeTape(tempDir.resolve("trade-tape"), () -> 0)) {
+            // Three instruments interleaved in every block, a fourth trades only once in the first block
+            String[] instrumentIds = {"AAPL", "GOOG", "MSFT"};
+            for (int row = 0; row < 3 * TradeTape.BLOCK_ROWS; row++) {
+                String instrumentId = row == 1 ? "IBM" : instrumentIds[row % 3];
+                tradeTape.append(row, instrumentId, FixedPoint.fromDouble(10), FixedPoint.fromDouble(1));
+            }
+
+            // IBM's key lies between keys that trade in every block, a min/max index would scan all three
+            assertEquals(1, tradeTape.countBlocksScanned("IBM", 0, Long.MAX_VALUE));
+            assertEquals(1.0, tradeTape.getVolume("IBM", 0, Long.MAX_VALUE));
+            assertEquals(3, tradeTape.countBlocksScanned("MSFT", 0, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void testTradeTape_QueriesDoNotWaitForWriter() throws Exception {
+        try (TradeTape tradeTape = new TradeTape(tempDir.resolve("trade-tape"), () -> 0)) {
+            tradeTape.append(0, "AAPL", FixedPoint.fromDouble(10), FixedPoint.fromDouble(2));
+            tradeTape.append(1, "AAPL", FixedPoint.fromDouble(13), FixedPoint.fromDouble(1));
+
+            // The writer's lock is held for the whole query, as a long append burst on the matching thread would
+            ExecutorService reader = Executors.newSingleThreadExecutor();
+            try {
+                synchronized (tradeTape) {
+                    Future<Double> vwap = reader.submit(() -> tradeTape.getVwap("AAPL", 0, Long.MAX_VALUE));
+                    assertEquals(11.0, vwap.get(5, TimeUnit.SECONDS), 1e-9);
+                }
+            } finally {
+                reader.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void testAdmissionController_RateLimitsPerTrader() throws OrderException {
+        // Ten orders per second with a burst of two, no load shedding
+        AtomicLong now = new AtomicLong(0);
+        AdmissionController admissionController = new AdmissionController(orderManager, now::get, 10, 2, 1_000, 1_000, 10);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        admissionController.addOrder(new Order("a1", "Trader1", OrderType.BUY, instrument, 10.0, 150.0));
+        admissionController.addOrder(new Order("a2", "Trader1", OrderType.BUY, instrument, 10.0, 150.0));
+        assertThrows(OrderException.class, () -> admissionController.addOrder(new Order("a3", "Trader1", OrderType.BUY, instrument, 10.0, 150.0)));
+        // Another trader has its own bucket
+        admissionController.addOrder(new Order("b1", "Trader2", OrderType.SELL, instrument, 10.0, 150.0));
+
+        // One token is back after 100 ms
+        now.set(100);
+        admissionController.addOrder(new Order("a4", "Trader1", OrderType.BUY, instrument, 10.0, 150.0));
+        assertEquals(4, orderManager.getOrders("1").size());
+        assertEquals(1, admissionController.getRejectedCount());
+    }
+
+    @Test
+    void testAdmissionController_ShedsLowPriorityUnderLoad() throws OrderException {
+        // Overloaded at two unmatched orders, severely overloaded at four
+        AtomicLong now = new AtomicLong(0);
+        AdmissionController admissionController = new AdmissionController(orderManager, now::get, 1_000, 100, 2, 1_000, 1);
+        tradingEngine.addMatchingPassListener(admissionController);
+        Instrument instrument = new Instrument("1", "AAPL");
+
+        admissionController.addOrder(new Order("n1", "Trader1", OrderType.BUY, instrument, 10.0, 140.0));
+        admissionController.addOrder(new Order("n2", "Trader1", OrderType.BUY, instrument, 10.0, 140.0));
+        Order quote = new Order("q1", "Trader2", OrderType.SELL, instrument, 10.0, 160.0);
+        quote.setPriority(OrderPriority.LOW);
+        admissionController.addOrder(quote);
+        assertEquals(List.of(quote), admissionController.getDeferredOrders());
+
+        // The deferral queue holds one order, the next quote is rejected
+        Order secondQuote = new Order("q2", "Trader2", OrderType.SELL, instrument, 10.0, 160.0);
+        secondQuote.setPriority(OrderPriority.LOW);
+        assertThrows(OrderException.class, () -> admissionController.addOrder(secondQuote));
+
+        // Severe lag defers normal flow, high priority still gets through
+        now.set(2_000);
+        Order normal = new Order("n3", "Trader1", OrderType.BUY, instrument, 10.0, 140.0);
+        assertThrows(OrderException.class, () -> admissionController.addOrder(normal));
+        Order urgent = new Order("h1", "Trader1", OrderType.SELL, instrument, 10.0, 140.0);
+        urgent.setPriority(OrderPriority.HIGH);
+        admissionController.addOrder(urgent);
+
+        // A matching pass clears the backlog and releases the deferred quote
+        tradingEngine.matchOrders(instrument.getId());
+        assertTrue(admissionController.getDeferredOrders().isEmpty());
+        assertTrue(orderManager.getOrders("1").contains(quote));
+        assertEquals(1, admissionController.getBacklog());
+    }
+
+    @Test
+    void testAdmissionController_MatchingOtherBookKeepsBacklog() throws OrderException {
+        AtomicLong now = new AtomicLong(0);
+        AdmissionController admissionController = new AdmissionController(orderManager, now::get, 1_000, 100, 2, 1_000, 10);
+        tradingEngine.addMatchingPassListener(admissionController);
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+
+        admissionController.addOrder(new Order("g1", "Trader1", OrderType.BUY, stock2, 10.0, 1900.0));
+        admissionController.addOrder(new Order("g2", "Trader1", OrderType.BUY, stock2, 10.0, 1900.0));
+
+        // The GOOG orders are still unmatched after an AAPL pass, so the controller stays overloaded
+        tradingEngine.matchOrders(stock1.getId());
+        assertEquals(2, admissionController.getBacklog());
+        Order quote = new Order("q1", "Trader2", OrderType.SELL, stock1, 10.0, 160.0);
+        quote.setPriority(OrderPriority.LOW);
+        admissionController.addOrder(quote);
+        assertEquals(List.of(quote), admissionController.getDeferredOrders());
+
+        tradingEngine.matchOrders(stock2.getId());
+        assertEquals(0, admissionController.getBacklog(stock2.getId()));
+        assertEquals(1, admissionController.getBacklog(stock1.getId()));
+        assertTrue(admissionController.getDeferredOrders().isEmpty());
+    }
+
+    @Test
+    void testAdmissionController_DeferredOrdersValidatedAndRejectionsReported() throws OrderException {
+        AtomicLong now = new AtomicLong(1_000);
+        InMemoryOrderManager timedOrderManager = new InMemoryOrderManager(now::get);
+        OrderStatusPublisher publisher = new OrderStatusPublisher(Runnable::run);
+        SimpleTradingEngine engine = new SimpleTradingEngine(timedOrderManager, marketDataProvider, ForkJoinPool.commonPool(), publisher);
+        AdmissionController admissionController = new AdmissionController(timedOrderManager, now::get, 1_000, 100, 1, 1_000, 10, publisher);
+        engine.addMatchingPassListener(admissionController);
+        Instrument instrument = new Instrument("1", "AAPL", FixedPoint.UNIT, FixedPoint.fromDouble(10));
+        List<ExecutionReport> reports = new ArrayList<>();
+        publisher.subscribeTrader("Trader2", reports::add);
+
+        // One unmatched order overloads the controller, so quotes are deferred from here on
+        assertEquals(AdmissionDecision.ADMIT,
+                admissionController.submit(new Order("other", "Trader1", OrderType.BUY, instrument, 10.0, 140.0)));
+
+        // A quote off the lot grid fails right away instead of vanishing once it is released
+        Order offLot = new Order("offLot", "Trader2", OrderType.SELL, instrument, 15.0, 160.0);
+        offLot.setPriority(OrderPriority.LOW);
+        assertThrows(OrderException.class, () -> admissionController.submit(offLot));
+        assertTrue(admissionController.getDeferredOrders().isEmpty());
+
+        // A good-till-date quote that runs out while deferred is reported as rejected on release
+        Order goodTillDate = new Order("gtd", "Trader2", OrderType.SELL, instrument, 10.0, 160.0);
+        goodTillDate.setPriority(OrderPriority.LOW);
+        goodTillDate.setExpireTime(now.get() + 500);
+        assertEquals(AdmissionDecision.DEFER, admissionController.submit(goodTillDate));
+        now.addAndGet(1_000);
+        engine.matchOrders(instrument.getId());
+
+        assertTrue(admissionController.getDeferredOrders().isEmpty());
+        assertEquals(OrderStatus.REJECTED, goodTillDate.getStatus());
+        assertEquals(1, reports.size());
+        assertEquals("gtd", reports.get(0).getOrderId());
+        assertEquals(OrderStatus.REJECTED, reports.get(0).getStatus());
+        assertEquals(1, admissionController.getRejectedCount());
+    }
+
+    @Test
+    void testAdmissionController_CancelsBypassThrottle() throws OrderException {
+        AtomicLong now = new AtomicLong(0);
+        AdmissionController admissionController = new AdmissionController(orderManager, now::get, 1, 1, 1, 1_000, 10);
+        Instrument instrument = new Instrument("1", "AAPL");
+        Order quote = new Order("q1", "Trader1", OrderType.SELL, instrument, 10.0, 160.0);
+        quote.setPriority(OrderPriority.LOW);
+
+        // One unmatched order is enough to overload the controller, so the quote is deferred
+        admissionController.addOrder(new Order("other", "Trader2", OrderType.BUY, instrument, 10.0, 140.0));
+        admissionController.addOrder(quote);
+        admissionController.cancelOrder("q1");
+        assertTrue(admissionController.getDeferredOrders().isEmpty());
+
+        // The bucket is empty, but cancels of resting orders still reach the order manager
+        orderManager.addOrder(new Order("resting", "Trader1", OrderType.BUY, instrument, 10.0, 140.0));
+        admissionController.cancelOrder("resting");
+        assertEquals(1, orderManager.getOrders("1").size());
+    }
+
+    @Test
+    void testEngineWarmup_ReportsSteadyStateOnScratchBooks() throws OrderException {
+        // A loose tolerance, the test checks the replay and the report rather than JIT timing
+        WarmupReport report = new EngineWarmup(100, 50, 2, 100.0).run();
+
+        assertTrue(report.isSteady());
+        assertEquals(2, report.getBatches());
+        assertTrue(report.getPreloadedClasses() > 0);
+        assertTrue(report.getFirstBatchNanos() > 0);
+        assertTrue(report.getSteadyStateNanos() > 0);
+        // Engine logging is restored and the live books are untouched
+        assertNull(Logger.getLogger(SimpleTradingEngine.class.getName()).getLevel());
+        assertTrue(orderManager.getOrders("1").isEmpty());
+    }
+
+    @Test
+    void testImpliedMatching_BasketFilledFromOutrightLegs() throws OrderException {
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 0.5)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(orderManager);
+        impliedPriceEngine.register(basket);
+        tradingEngine.setImpliedPriceEngine(impliedPriceEngine);
+        PositionKeeper positionKeeper = new PositionKeeper(marketDataProvider);
+        tradingEngine.addTradeListener(positionKeeper);
+
+        Order appleOffer = new Order("sell1", "Trader2", OrderType.SELL, stock1, 100.0, 150.0);
+        Order googleOffer = new Order("sell2", "Trader3", OrderType.SELL, stock2, 30.0, 2000.0);
+        orderManager.addOrder(appleOffer);
+        orderManager.addOrder(googleOffer);
+        tradingEngine.matchOrders(stock1.getId());
+        tradingEngine.matchOrders(stock2.getId());
+        // One basket is 150 + 0.5 * 2000, the GOOG offer covers 60 baskets
+        assertEquals(1150.0, impliedPriceEngine.getImpliedAsk(basket.getId()));
+        assertEquals(60.0, impliedPriceEngine.getImpliedAskQuantity(basket.getId()));
+
+        Order basketBid = new Order("buyBasket", "Trader1", OrderType.BUY, basket, 40.0, 1200.0);
+        orderManager.addOrder(basketBid);
+        tradingEngine.matchOrders(basket.getId());
+
+        assertEquals(OrderStatus.FILLED, basketBid.getStatus());
+        assertEquals(60.0, appleOffer.getQuantity());
+        assertEquals(10.0, googleOffer.getQuantity());
+        assertEquals(40.0, positionKeeper.getPosition("Trader1", "1").getNetQuantity());
+        assertEquals(20.0, positionKeeper.getPosition("Trader1", "2").getNetQuantity());
+        assertEquals(150.0, positionKeeper.getPosition("Trader1", "1").getAveragePrice());
+    }
+
+    @Test
+    void testImpliedMatching_MatchesWithoutScanningBooks() throws OrderException {
+        AtomicLong bookScans = new AtomicLong();
+        InMemoryOrderManager countingOrderManager = new InMemoryOrderManager() {
+            @Override
+            public List<Order> getOrders(String instrumentId) {
+                bookScans.incrementAndGet();
+                return super.getOrders(instrumentId);
+            }
+        };
+        SimpleTradingEngine engine = new SimpleTradingEngine(countingOrderManager, marketDataProvider);
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 0.5)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(countingOrderManager);
+        impliedPriceEngine.register(basket);
+        engine.setImpliedPriceEngine(impliedPriceEngine);
+        // Registering reads each book once, from then on the book events keep the tops current
+        bookScans.set(0);
+
+        for (int i = 0; i < 4; i++) {
+            countingOrderManager.addOrder(new Order("sell1-" + i, "Trader2", OrderType.SELL, stock1, 10.0, 150.0 + i));
+            countingOrderManager.addOrder(new Order("sell2-" + i, "Trader3", OrderType.SELL, stock2, 20.0, 2000.0 + i));
+        }
+        Order basketBid = new Order("buyBasket", "Trader1", OrderType.BUY, basket, 30.0, 1200.0);
+        countingOrderManager.addOrder(basketBid);
+        engine.matchOrders(basket.getId());
+
+        // Three implied matches walk down both leg books without a single full-book scan
+        assertEquals(OrderStatus.FILLED, basketBid.getStatus());
+        assertEquals(0, bookScans.get());
+        assertEquals(153.0, impliedPriceEngine.getTopOfBook(stock1.getId()).getBestAsk().getPrice());
+    }
+
+    @Test
+    void testImpliedMatching_SkipsOwnLegOrdersUnderSelfTradePrevention() throws OrderException {
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 0.5)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(orderManager);
+        impliedPriceEngine.register(basket);
+        tradingEngine.setImpliedPriceEngine(impliedPriceEngine);
+
+        // Trader1's own AAPL offer is the best one, the next offer still crosses the basket bid
+        Order ownOffer = new Order("ownSell", "Trader1", OrderType.SELL, stock1, 100.0, 149.0);
+        Order appleOffer = new Order("sell1", "Trader2", OrderType.SELL, stock1, 100.0, 150.0);
+        orderManager.addOrder(ownOffer);
+        orderManager.addOrder(appleOffer);
+        orderManager.addOrder(new Order("sell2", "Trader3", OrderType.SELL, stock2, 100.0, 2000.0));
+        Order basketBid = new Order("buyBasket", "Trader1", OrderType.BUY, basket, 40.0, 1200.0);
+        orderManager.addOrder(basketBid);
+        tradingEngine.matchOrders(basket.getId());
+
+        assertEquals(OrderStatus.FILLED, basketBid.getStatus());
+        assertEquals(100.0, ownOffer.getQuantity());
+        assertEquals(60.0, appleOffer.getQuantity());
+
+        // Without self-trade prevention the own offer is just the best offer
+        tradingEngine.setSelfTradePrevention(SelfTradePrevention.NONE);
+        Order secondBasketBid = new Order("buyBasket2", "Trader1", OrderType.BUY, basket, 40.0, 1200.0);
+        orderManager.addOrder(secondBasketBid);
+        tradingEngine.matchOrders(basket.getId());
+
+        assertEquals(OrderStatus.FILLED, secondBasketBid.getStatus());
+        assertEquals(60.0, ownOffer.getQuantity());
+        assertEquals(60.0, appleOffer.getQuantity());
+    }
+
+    @Test
+    void testImpliedMatching_OutrightFilledOutOfBasket() throws OrderException {
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 1.0)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(orderManager);
+        impliedPriceEngine.register(basket);
+        tradingEngine.setImpliedPriceEngine(impliedPriceEngine);
+
+        // The basket offer at 2150 minus the GOOG bid at 1990 implies an AAPL offer at 160
+        Order basketOffer = new Order("sellBasket", "Trader1", OrderType.SELL, basket, 10.0, 2150.0);
+        Order googleBid = new Order("buy2", "Trader3", OrderType.BUY, stock2, 10.0, 1990.0);
+        orderManager.addOrder(basketOffer);
+        orderManager.addOrder(googleBid);
+        tradingEngine.matchOrders(basket.getId());
+        assertEquals(160.0, impliedPriceEngine.getImpliedLegAsk(basket.getId(), stock1.getId()));
+        assertEquals(OrderStatus.PENDING, basketOffer.getStatus());
+
+        Order appleBid = new Order("buy1", "Trader2", OrderType.BUY, stock1, 10.0, 160.0);
+        orderManager.addOrder(appleBid);
+        tradingEngine.matchOrders(stock1.getId());
+
+        assertEquals(OrderStatus.FILLED, appleBid.getStatus());
+        assertEquals(OrderStatus.FILLED, googleBid.getStatus());
+        assertEquals(OrderStatus.FILLED, basketOffer.getStatus());
+        assertTrue(Double.isNaN(impliedPriceEngine.getImpliedLegAsk(basket.getId(), stock1.getId())));
+    }
+
+    @Test
+    void testImpliedMatching_BasketQuantityKeepsLegsInWholeLots() throws OrderException {
+        // GOOG trades in lots of 10 at a quarter per basket, so baskets fill in steps of 40
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG", FixedPoint.UNIT, FixedPoint.fromDouble(10));
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 0.25)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(orderManager);
+        impliedPriceEngine.register(basket);
+        tradingEngine.setImpliedPriceEngine(impliedPriceEngine);
+        PositionKeeper positionKeeper = new PositionKeeper(marketDataProvider);
+        tradingEngine.addTradeListener(positionKeeper);
+
+        orderManager.addOrder(new Order("sell1", "Trader2", OrderType.SELL, stock1, 200.0, 150.0));
+        orderManager.addOrder(new Order("sell2", "Trader3", OrderType.SELL, stock2, 50.0, 2000.0));
+        Order basketBid = new Order("buyBasket", "Trader1", OrderType.BUY, basket, 100.0, 1000.0);
+        orderManager.addOrder(basketBid);
+        tradingEngine.matchOrders(basket.getId());
+
+        // The basket is only charged for what its legs delivered
+        assertEquals(OrderStatus.PARTIALLY_FILLED, basketBid.getStatus());
+        assertEquals(20.0, basketBid.getQuantity());
+        assertEquals(80.0, positionKeeper.getPosition("Trader1", "1").getNetQuantity());
+        assertEquals(20.0, positionKeeper.getPosition("Trader1", "2").getNetQuantity());
+    }
+
+    @Test
+    void testImpliedMatching_PublishesViewsOfTradedLegBooks() throws OrderException {
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        CompositeInstrument basket = new CompositeInstrument("3", "Basket", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 1.0)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(orderManager);
+        impliedPriceEngine.register(basket);
+        tradingEngine.setImpliedPriceEngine(impliedPriceEngine);
+        OrderQueryService queryService = new OrderQueryService(orderManager);
+        tradingEngine.setQueryService(queryService);
+
+        orderManager.addOrder(new Order("sellBasket", "Trader1", OrderType.SELL, basket, 10.0, 2150.0));
+        orderManager.addOrder(new Order("buy2", "Trader3", OrderType.BUY, stock2, 10.0, 1990.0));
+        tradingEngine.matchOrders(basket.getId());
+        orderManager.addOrder(new Order("buy1", "Trader2", OrderType.BUY, stock1, 10.0, 160.0));
+
+        // Only AAPL is matched, the GOOG bid trades through the basket and its view follows
+        tradingEngine.matchOrders(stock1.getId());
+        assertEquals(OrderStatus.FILLED, queryService.getOrdersByInstrument("2").get(0).getStatus());
+        assertEquals(OrderStatus.FILLED, queryService.getOrdersByInstrument("3").get(0).getStatus());
+    }
+
+    @Test
+    void testImpliedMatching_RecomputesOnlyBasketsOfChangedLeg() throws OrderException {
+        Instrument stock1 = new Instrument("1", "AAPL");
+        Instrument stock2 = new Instrument("2", "GOOG");
+        Instrument stock3 = new Instrument("4", "MSFT");
+        CompositeInstrument basket1 = new CompositeInstrument("3", "Basket1", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock2, 1.0)
+        ));
+        CompositeInstrument basket2 = new CompositeInstrument("5", "Basket2", List.of(
+                new InstrumentComponent(stock1, 1.0),
+                new InstrumentComponent(stock3, 1.0)
+        ));
+        ImpliedPriceEngine impliedPriceEngine = new ImpliedPriceEngine(orderManager);
+        impliedPriceEngine.register(basket1);
+        impliedPriceEngine.register(basket2);
+        tradingEngine.setImpliedPriceEngine(impliedPriceEngine);
+        long registered = impliedPriceEngine.getRecomputationCount();
+
+        // A new MSFT top only moves the basket that contains MSFT
+        orderManager.addOrder(new Order("buy4", "Trader1", OrderType.BUY, stock3, 10.0, 300.0));
+        tradingEngine.matchOrders(stock3.getId());
+        assertEquals(registered + 1, impliedPriceEngine.getRecomputationCount());
+
+        // Matching a book whose top did not move recomputes nothing
+        tradingEngine.matchOrders(stock3.getId());
+        assertEquals(registered + 1, impliedPriceEngine.getRecomputationCount());
+
+        // AAPL is shared, both baskets move
+        orderManager.addOrder(new Order("buy1", "Trader1", OrderType.BUY, stock1, 10.0, 150.0));
+        tradingEngine.matchOrders(stock1.getId());
+        assertEquals(registered + 3, impliedPriceEngine.getRecomputationCount());
+        assertEquals(450.0, impliedPriceEngine.getImpliedBid(basket2.getId()));
+        assertTrue(Double.isNaN(impliedPriceEngine.getImpliedBid(basket1.getId())));
+    }
 }